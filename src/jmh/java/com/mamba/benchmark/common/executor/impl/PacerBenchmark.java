@@ -0,0 +1,58 @@
+package com.mamba.benchmark.common.executor.impl;
+
+import com.mamba.benchmark.common.executor.Arrival;
+import com.mamba.benchmark.common.stat.LatencyRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-dispatch overhead of a real {@link Pacer} loop with a no-op dispatcher. The rate is far beyond what the loop can
+ * keep up with, so every deadline has passed and nothing is awaited
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PacerBenchmark {
+
+    private static final int DISPATCHES = 10000;
+
+    @Param({"UNIFORM", "POISSON"})
+    private Arrival arrival;
+
+    private final LatencyRecorder drift = new LatencyRecorder();
+
+    private final Object task = new Object();
+
+    private Pacer<Object> pacer;
+
+    private int dispatched;
+
+    @Benchmark
+    public long nextInterval() {
+        return this.arrival.nextInterval(10000);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DISPATCHES)
+    public int dispatch() {
+        this.dispatched = 0;
+        this.pacer = new Pacer<>(() -> Integer.MAX_VALUE, this.arrival, () -> this.task, this::onDispatch, this.drift, System.nanoTime());
+        //派发够次数后取消，run在当前线程返回
+        this.pacer.run();
+        return this.dispatched;
+    }
+
+    private void onDispatch(Object task, long deadline) {
+        if (++this.dispatched == DISPATCHES) {
+            this.pacer.cancel();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.mamba.benchmark.common.pressure;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PressureBenchmark {
+
+    @Param({"fixed", "gradient", "custom"})
+    private String type;
+
+    private Pressure pressure;
+
+    @Setup
+    public void setup() {
+        switch (this.type) {
+            case "fixed":
+                this.pressure = new Fixed(1000, 3600, 60);
+                break;
+            case "gradient":
+                this.pressure = new Gradient(100, 1000, 100, 600);
+                break;
+            case "custom":
+                this.pressure = new Custom(new int[]{100, 500, 1000}, 1200);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid type: " + this.type);
+        }
+    }
+
+    @Benchmark
+    public int currentQuantity() {
+        return this.pressure.currentQuantity();
+    }
+}
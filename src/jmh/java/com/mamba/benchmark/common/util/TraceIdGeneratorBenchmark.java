@@ -0,0 +1,37 @@
+package com.mamba.benchmark.common.util;
+
+import io.netty.util.AsciiString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TraceIdGeneratorBenchmark {
+
+    private final TraceIdGenerator generator = new TraceIdGenerator("ab");
+
+    private final byte[] buffer = new byte[TraceIdGenerator.LENGTH];
+
+    @Benchmark
+    public String genTraceId() {
+        return TraceIdGenerator.genTraceId("ab");
+    }
+
+    @Benchmark
+    public AsciiString next() {
+        return this.generator.next();
+    }
+
+    @Benchmark
+    public byte[] write() {
+        this.generator.write(this.buffer, 0);
+        return this.buffer;
+    }
+}
@@ -0,0 +1,77 @@
+package com.mamba.benchmark.http.base;
+
+import com.google.common.net.MediaType;
+import com.mamba.benchmark.http.base.body.FileBody;
+import com.mamba.benchmark.http.base.body.MultipartBody;
+import com.mamba.benchmark.http.base.body.StringBody;
+import com.mamba.benchmark.http.client.ClientRequest;
+import com.mamba.benchmark.http.client.RequestUri;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.cookie.DefaultCookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HttpRequestBenchmark {
+
+    @Param({"string", "file", "multipart"})
+    private String body;
+
+    private File file;
+
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.file = File.createTempFile("benchmark", ".json");
+        Files.write(this.file.toPath(), "{\"test\":1}".getBytes(StandardCharsets.UTF_8));
+        this.request = newRequest(this.body, this.file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.file.delete();
+    }
+
+    @Benchmark
+    public ClientRequest toRequest() {
+        return this.request.toRequest();
+    }
+
+    static HttpRequest newRequest(String body, File file) {
+        HttpHeaders headers = new DefaultHttpHeaders(true);
+        headers.add("header1", "h123");
+        RequestUri uri = RequestUri.create("http://127.0.0.1:8001/testpost");
+        switch (body) {
+            case "string":
+                return new HttpRequest(HttpMethod.POST, uri, MediaType.JSON_UTF_8, new StringBody("{\"test\":1}"), headers, Collections.singletonList(new DefaultCookie("cookie1", "c123")));
+            case "file":
+                return new HttpRequest(HttpMethod.POST, uri, MediaType.JSON_UTF_8, new FileBody(file), headers, Collections.singletonList(new DefaultCookie("cookie1", "c123")));
+            case "multipart":
+                MultipartBody multipart = new MultipartBody();
+                multipart.add("body1", "b123", "application/json");
+                multipart.add("body2", file);
+                return new HttpRequest(HttpMethod.POST, uri, MediaType.create("multipart", "form-data"), multipart, headers, Collections.singletonList(new DefaultCookie("cookie1", "c123")));
+            default:
+                throw new IllegalArgumentException("Invalid body: " + body);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.mamba.benchmark.http.generator;
+
+import com.google.common.net.MediaType;
+import com.mamba.benchmark.http.base.HttpMethod;
+import com.mamba.benchmark.http.base.HttpRequest;
+import com.mamba.benchmark.http.base.body.StringBody;
+import com.mamba.benchmark.http.client.RequestUri;
+import com.mamba.benchmark.http.define.Invocation;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InvariantTaskGeneratorBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int batchSize;
+
+    private InvariantTaskGenerator generator;
+
+    @Setup
+    public void setup() {
+        HttpRequest request = new HttpRequest(HttpMethod.POST, RequestUri.create("http://127.0.0.1:8001/testpost"), MediaType.JSON_UTF_8,
+                new StringBody("{\"test\":1}"), new DefaultHttpHeaders(true), Collections.emptyList());
+        //只生成任务，不执行，无需客户端
+        this.generator = new InvariantTaskGenerator(null, request, true);
+    }
+
+    @Benchmark
+    public List<Invocation> apply() {
+        return this.generator.apply(this.batchSize);
+    }
+}
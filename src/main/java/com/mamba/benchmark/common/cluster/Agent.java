@@ -0,0 +1,220 @@
+package com.mamba.benchmark.common.cluster;
+
+import com.mamba.benchmark.common.executor.impl.CustomThreadFactory;
+import com.mamba.benchmark.common.stat.SnapshotCodec;
+import com.mamba.benchmark.common.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Agent of a distributed run: receives the arguments of the run from the coordinator, starts at its signal, and
+ * sends what its statistics recorded in each second at the tick of the pressure executor
+ */
+public class Agent implements IntConsumer, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Agent.class);
+
+    private final Socket socket;
+
+    private final DataInputStream in;
+
+    private final DataOutputStream out;
+
+    /**
+     * Single sender thread, keeps snapshot and socket I/O off the executor threads
+     */
+    private final ExecutorService sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new CustomThreadFactory("agent"));
+
+    private Statistics statistics;
+
+    /**
+     * Snapshot at the previous tick (accessed by sender thread only)
+     */
+    private Statistics.Snapshot previous;
+
+    private int tick;
+
+    private Agent(Socket socket) throws IOException {
+        this.socket = socket;
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Connect to the coordinator, retrying until it listens
+     *
+     * @param host    host of coordinator
+     * @param port    port of coordinator
+     * @param timeout max wait for the coordinator, in milliseconds
+     * @return
+     * @throws IOException
+     */
+    public static Agent connect(String host, int port, long timeout) throws IOException {
+        long deadline = System.currentTimeMillis() + timeout;
+        for (; ; ) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(host, port), 1000);
+                Agent agent = new Agent(socket);
+                agent.out.writeByte(Protocol.HELLO);
+                agent.out.writeInt(Protocol.MAGIC);
+                agent.out.writeUTF(ManagementFactory.getRuntimeMXBean().getName());
+                agent.out.flush();
+                return agent;
+            } catch (ConnectException e) {
+                socket.close();
+                if (System.currentTimeMillis() >= deadline) {
+                    throw e;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(500);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for the assignment of the coordinator, sent once all agents have connected
+     *
+     * @return
+     * @throws IOException
+     */
+    public Assignment awaitAssignment() throws IOException {
+        Protocol.expect(this.in, Protocol.ASSIGN);
+        int index = Protocol.readInt(this.in);
+        int count = Protocol.readInt(this.in);
+        List<String> args = Protocol.readStrings(this.in);
+        LOGGER.info("Assigned as agent {} of {}", index, count);
+        return new Assignment(index, count, args);
+    }
+
+    /**
+     * Report the statistics at each tick from now on
+     *
+     * @param statistics
+     */
+    public void attach(Statistics statistics) {
+        this.statistics = statistics;
+        this.previous = statistics.snapshot();
+    }
+
+    /**
+     * Tell the coordinator this agent is prepared, and wait for all agents to be
+     *
+     * @return start time, in epoch millis
+     * @throws IOException
+     */
+    public long ready() throws IOException {
+        this.out.writeByte(Protocol.READY);
+        this.out.flush();
+        Protocol.expect(this.in, Protocol.START);
+        return this.in.readLong();
+    }
+
+    /**
+     * Tick of the pressure executor
+     *
+     * @param target current target quantity
+     */
+    @Override
+    public void accept(int target) {
+        if (this.statistics == null) {
+            return;
+        }
+        try {
+            this.sender.execute(() -> this.report(target));
+        } catch (Exception e) {
+            LOGGER.warn("report rejected: {}", e.getMessage());
+        }
+    }
+
+    private void report(int target) {
+        Statistics.Snapshot current = this.statistics.snapshot();
+        Statistics.Snapshot window = current.minus(this.previous);
+        this.previous = current;
+        try {
+            this.out.writeByte(Protocol.REPORT);
+            Protocol.writeInt(this.out, this.tick++);
+            Protocol.writeInt(this.out, target);
+            SnapshotCodec.write(this.out, window);
+            this.out.flush();
+        } catch (IOException e) {
+            LOGGER.error("report error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Send what was recorded after the last tick, the run of this agent is over
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        this.sender.shutdown();
+        try {
+            this.sender.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+        }
+        Statistics.Snapshot window = this.statistics == null ? new Statistics().snapshot() : this.statistics.snapshot().minus(this.previous);
+        this.out.writeByte(Protocol.DONE);
+        SnapshotCodec.write(this.out, window);
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.sender.shutdownNow();
+        this.socket.close();
+    }
+
+    /**
+     * Arguments of the run and share of this agent
+     */
+    public static class Assignment {
+
+        private final int index;
+
+        private final int count;
+
+        private final List<String> args;
+
+        private Assignment(int index, int count, List<String> args) {
+            this.index = index;
+            this.count = count;
+            this.args = Collections.unmodifiableList(args);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public List<String> getArgs() {
+            return args;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.mamba.benchmark.common.cluster;
+
+import com.mamba.benchmark.common.executor.impl.CustomThreadFactory;
+import com.mamba.benchmark.common.stat.SnapshotCodec;
+import com.mamba.benchmark.common.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Coordinator of a distributed run: gives each agent the arguments of the run and its index for its share of the
+ * pressure, starts all agents at the same time, and merges their reports of each second into one window as soon as
+ * every agent has reported it. Histograms share the same buckets, so merged windows and totals are the ones a single
+ * load generator would record
+ */
+public class Coordinator implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Coordinator.class);
+
+    /**
+     * Delay from the start message to the start of agents, in milliseconds
+     */
+    private static final long START_DELAY = 2000;
+
+    private final ServerSocket server;
+
+    private final int agents;
+
+    private final List<Link> links = new ArrayList<>();
+
+    /**
+     * Listeners of merged windows, accepting the window and the target of all agents
+     */
+    private final List<ObjIntConsumer<Statistics.Snapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Windows not reported by every agent yet, by tick (guarded by this)
+     */
+    private final Map<Integer, Window> windows = new TreeMap<>();
+
+    /**
+     * @param port   listening port, 0 for any free port
+     * @param agents agent count
+     * @throws IOException
+     */
+    public Coordinator(int port, int agents) throws IOException {
+        if (agents < 1) {
+            throw new IllegalArgumentException("Invalid agents: " + agents);
+        }
+        this.server = new ServerSocket();
+        this.server.setReuseAddress(true);
+        this.server.bind(new InetSocketAddress(port));
+        this.agents = agents;
+    }
+
+    public int getPort() {
+        return this.server.getLocalPort();
+    }
+
+    /**
+     * Add listener of merged windows
+     *
+     * @param listener accepts the window and the sum of targets, -1 once every agent has finished its pressure
+     */
+    public void addListener(ObjIntConsumer<Statistics.Snapshot> listener) {
+        this.listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Wait for all agents to connect, and assign them the arguments of the run
+     *
+     * @param args    arguments of the run, the same for every agent
+     * @param timeout max wait for each agent, in milliseconds
+     * @throws IOException
+     */
+    public void assign(List<String> args, int timeout) throws IOException {
+        this.server.setSoTimeout(timeout);
+        while (this.links.size() < this.agents) {
+            Socket socket = this.server.accept();
+            Link link = new Link(socket, this.links.size());
+            synchronized (this) {
+                this.links.add(link);
+            }
+            socket.setSoTimeout(timeout);
+            Protocol.expect(link.in, Protocol.HELLO);
+            if (link.in.readInt() != Protocol.MAGIC) {
+                throw new IOException("Invalid agent: " + socket.getRemoteSocketAddress());
+            }
+            link.name = link.in.readUTF();
+            link.out.writeByte(Protocol.ASSIGN);
+            Protocol.writeInt(link.out, link.index);
+            Protocol.writeInt(link.out, this.agents);
+            Protocol.writeStrings(link.out, args);
+            link.out.flush();
+            LOGGER.info("Agent {} connected: {} from {}", link.index, link.name, socket.getRemoteSocketAddress());
+        }
+    }
+
+    /**
+     * Wait for all agents to be ready, start them at the same time, then merge their reports in background
+     *
+     * @param timeout max wait for each agent to be ready, in milliseconds
+     * @return start time, in epoch millis
+     * @throws IOException
+     */
+    public long start(int timeout) throws IOException {
+        for (Link link : this.links) {
+            link.socket.setSoTimeout(timeout);
+            Protocol.expect(link.in, Protocol.READY);
+        }
+        long startTime = System.currentTimeMillis() + START_DELAY;
+        for (Link link : this.links) {
+            link.socket.setSoTimeout(0);
+            link.out.writeByte(Protocol.START);
+            link.out.writeLong(startTime);
+            link.out.flush();
+        }
+        CustomThreadFactory threadFactory = new CustomThreadFactory("coordinator");
+        for (Link link : this.links) {
+            threadFactory.newThread(() -> this.receive(link)).start();
+        }
+        LOGGER.info("{} agents start at {}", this.links.size(), startTime);
+        return startTime;
+    }
+
+    /**
+     * Sum of the reports received so far
+     *
+     * @return
+     */
+    public synchronized Statistics.Snapshot snapshot() {
+        Statistics.Snapshot total = new Statistics().snapshot();
+        for (Link link : this.links) {
+            total = total.plus(link.total);
+        }
+        return total;
+    }
+
+    /**
+     * Wait for all agents to finish, or to be lost
+     *
+     * @return sum of all agents
+     * @throws InterruptedException
+     */
+    public synchronized Statistics.Snapshot await() throws InterruptedException {
+        while (!this.links.stream().allMatch(link -> link.done)) {
+            this.wait();
+        }
+        this.merge();
+        return this.snapshot();
+    }
+
+    private void receive(Link link) {
+        try {
+            for (; ; ) {
+                byte type = link.in.readByte();
+                if (type == Protocol.REPORT) {
+                    int tick = Protocol.readInt(link.in);
+                    int target = Protocol.readInt(link.in);
+                    this.onReport(link, tick, target, SnapshotCodec.read(link.in));
+                } else if (type == Protocol.DONE) {
+                    this.onDone(link, SnapshotCodec.read(link.in));
+                    return;
+                } else {
+                    throw new IOException("Unexpected message: " + type);
+                }
+            }
+        } catch (EOFException e) {
+            LOGGER.error("Agent {} lost: connection closed", link.index);
+            this.onDone(link, null);
+        } catch (Exception e) {
+            LOGGER.error("Agent {} lost: {}", link.index, e.getMessage(), e);
+            this.onDone(link, null);
+        }
+    }
+
+    private synchronized void onReport(Link link, int tick, int target, Statistics.Snapshot snapshot) {
+        link.total = link.total.then(snapshot);
+        this.windows.computeIfAbsent(tick, k -> new Window()).add(snapshot, target);
+        link.tick = tick;
+        this.merge();
+    }
+
+    private synchronized void onDone(Link link, Statistics.Snapshot snapshot) {
+        if (link.done) {
+            return;
+        }
+        if (snapshot != null) {
+            link.total = link.total.then(snapshot);
+        }
+        link.done = true;
+        this.merge();
+        this.notifyAll();
+    }
+
+    /**
+     * Publish windows in order of ticks, once reported by every running agent
+     */
+    private void merge() {
+        Iterator<Map.Entry<Integer, Window>> iterator = this.windows.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Window> entry = iterator.next();
+            int tick = entry.getKey();
+            if (!this.links.stream().allMatch(link -> link.done || link.tick >= tick)) {
+                return;
+            }
+            iterator.remove();
+            Window window = entry.getValue();
+            for (ObjIntConsumer<Statistics.Snapshot> listener : this.listeners) {
+                try {
+                    listener.accept(window.snapshot, window.target);
+                } catch (Exception e) {
+                    LOGGER.error("window listener error: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Link link : this.links) {
+            try {
+                link.socket.close();
+            } catch (IOException e) {
+            }
+        }
+        this.server.close();
+    }
+
+    private static class Link {
+
+        private final Socket socket;
+
+        private final int index;
+
+        private final DataInputStream in;
+
+        private final DataOutputStream out;
+
+        private String name;
+
+        /**
+         * Last reported tick (guarded by coordinator)
+         */
+        private int tick = -1;
+
+        private boolean done;
+
+        /**
+         * Sum of the reports of agent (guarded by coordinator)
+         */
+        private Statistics.Snapshot total = new Statistics().snapshot();
+
+        private Link(Socket socket, int index) throws IOException {
+            this.socket = socket;
+            this.index = index;
+            this.socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+    }
+
+    /**
+     * One second of all agents
+     */
+    private static class Window {
+
+        private Statistics.Snapshot snapshot;
+
+        private int target = -1;
+
+        private void add(Statistics.Snapshot snapshot, int target) {
+            this.snapshot = this.snapshot == null ? snapshot : this.snapshot.plus(snapshot);
+            if (target >= 0) {
+                this.target = Math.max(this.target, 0) + target;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.mamba.benchmark.common.cluster;
+
+import com.mamba.benchmark.common.stat.SnapshotCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary protocol between the coordinator and its agents, over one TCP connection per agent.
+ * A message is a type byte followed by its fields:
+ * <pre>
+ * HELLO   agent -&gt; coordinator  magic, agent name
+ * ASSIGN  coordinator -&gt; agent  index, agent count, arguments
+ * READY   agent -&gt; coordinator  prepared to start
+ * START   coordinator -&gt; agent  start time (epoch millis)
+ * REPORT  agent -&gt; coordinator  tick, target, snapshot of the tick
+ * DONE    agent -&gt; coordinator  snapshot since the last tick
+ * </pre>
+ */
+final class Protocol {
+
+    static final int MAGIC = 0x424D4B31;
+
+    static final byte HELLO = 1;
+
+    static final byte ASSIGN = 2;
+
+    static final byte READY = 3;
+
+    static final byte START = 4;
+
+    static final byte REPORT = 5;
+
+    static final byte DONE = 6;
+
+    private Protocol() {
+    }
+
+    static void expect(DataInput in, byte type) throws IOException {
+        byte actual = in.readByte();
+        if (actual != type) {
+            throw new IOException("Unexpected message: " + actual + ", expected: " + type);
+        }
+    }
+
+    static int readInt(DataInput in) throws IOException {
+        return (int) SnapshotCodec.readVarLong(in);
+    }
+
+    static void writeInt(DataOutput out, int value) throws IOException {
+        SnapshotCodec.writeVarLong(out, value);
+    }
+
+    static void writeStrings(DataOutput out, List<String> values) throws IOException {
+        writeInt(out, values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    static List<String> readStrings(DataInput in) throws IOException {
+        int size = readInt(in);
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+}
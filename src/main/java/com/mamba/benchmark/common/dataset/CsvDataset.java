@@ -0,0 +1,338 @@
+package com.mamba.benchmark.common.dataset;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CSV file (UTF-8, header line, one record per line) read through memory-mapped segments, records are decoded on demand and never loaded onto the heap as a whole.
+ * A dataset may read only one slice of the records, e.g. the share of an agent in a distributed run
+ */
+public class CsvDataset implements Closeable {
+
+    /**
+     * Length of segment, a line starts in exactly one segment
+     */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * Max length of line, segments overlap by this length so that a line never crosses the end of its segment
+     */
+    private static final int MAX_LINE_LENGTH = 1 << 20;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer[] segments;
+
+    private final long size;
+
+    private final String[] header;
+
+    /**
+     * Offset of the first record of slice
+     */
+    private final long dataStart;
+
+    /**
+     * End of the last record of slice
+     */
+    private final long dataEnd;
+
+    private final Cursor cursor;
+
+    /**
+     * Partitions of records, each with its own cursor
+     */
+    private final Partition[] partitions;
+
+    /**
+     * Partition of the next read, reads rotate over all partitions whatever thread they come from
+     */
+    private final AtomicInteger partitionSequencer = new AtomicInteger();
+
+    /**
+     * Offset of the next record of sequential cursor
+     */
+    private long position;
+
+    public CsvDataset(File file, Cursor cursor) throws IOException {
+        this(file, cursor, 1);
+    }
+
+    /**
+     * @param file       csv file
+     * @param cursor     order of reading
+     * @param partitions partition count of {@link Cursor#PARTITIONED}
+     * @throws IOException
+     */
+    public CsvDataset(File file, Cursor cursor, int partitions) throws IOException {
+        this(file, cursor, partitions, 0, 1);
+    }
+
+    /**
+     * @param file       csv file
+     * @param cursor     order of reading
+     * @param partitions partition count of {@link Cursor#PARTITIONED}
+     * @param slice      index of the slice read, records are split into slices of about the same size at line boundaries
+     * @param slices     slice count
+     * @throws IOException
+     */
+    public CsvDataset(File file, Cursor cursor, int partitions, int slice, int slices) throws IOException {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Invalid partitions: " + partitions);
+        }
+        if (slice < 0 || slice >= slices) {
+            throw new IllegalArgumentException("Invalid slice: " + slice + " of " + slices);
+        }
+        this.channel = new RandomAccessFile(file, "r").getChannel();
+        try {
+            this.size = this.channel.size();
+            this.segments = map(this.channel, this.size);
+            long headerEnd = this.nextLine(0);
+            this.header = this.parse(0, headerEnd);
+            long length = this.size - headerEnd;
+            this.dataStart = this.skipBlank(this.lineStart(headerEnd, headerEnd + length / slices * slice), this.size);
+            this.dataEnd = slice + 1 == slices ? this.size : this.lineStart(headerEnd, headerEnd + length / slices * (slice + 1));
+            this.position = this.dataStart;
+            if (this.position >= this.dataEnd) {
+                throw new IllegalArgumentException(slices == 1 ? "Empty dataset: " + file : "Empty slice " + slice + " of " + slices + " of dataset: " + file);
+            }
+            this.cursor = cursor;
+            this.partitions = this.split(partitions);
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, long size) throws IOException {
+        int count = (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long offset = i * SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(size - offset, SEGMENT_SIZE + MAX_LINE_LENGTH));
+        }
+        return segments;
+    }
+
+    public String[] getHeader() {
+        return header.clone();
+    }
+
+    /**
+     * Index of column
+     *
+     * @param name column name
+     * @return index, -1 if not found
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < this.header.length; i++) {
+            if (this.header[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Next record, thread-safe
+     *
+     * @return fields of record
+     */
+    public String[] next() {
+        long start;
+        switch (this.cursor) {
+            case SEQUENTIAL:
+                synchronized (this) {
+                    start = this.position;
+                    this.position = this.skipBlank(this.nextLine(start), this.dataEnd);
+                    if (this.position >= this.dataEnd) {
+                        this.position = this.dataStart;
+                    }
+                }
+                break;
+            case RANDOM:
+                start = this.randomLine();
+                break;
+            case PARTITIONED:
+                Partition partition = this.partitions[(this.partitionSequencer.getAndIncrement() & Integer.MAX_VALUE) % this.partitions.length];
+                synchronized (partition) {
+                    start = partition.position;
+                    partition.position = this.skipBlank(this.nextLine(start), partition.end);
+                    if (partition.position >= partition.end) {
+                        partition.position = partition.start;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported cursor: " + this.cursor);
+        }
+        return this.parse(start, this.nextLine(start));
+    }
+
+    /**
+     * Record following a random offset, lines after long lines are slightly more likely to be chosen
+     *
+     * @return
+     */
+    private long randomLine() {
+        long offset = this.dataStart + ThreadLocalRandom.current().nextLong(this.dataEnd - this.dataStart);
+        long start = this.skipBlank(this.lineStart(this.dataStart, offset), this.dataEnd);
+        return start < this.dataEnd ? start : this.dataStart;
+    }
+
+    /**
+     * Split records into partitions at line boundaries, empty partitions are dropped
+     *
+     * @param count
+     * @return
+     */
+    private Partition[] split(int count) {
+        List<Long> starts = new ArrayList<>(count + 1);
+        long length = this.dataEnd - this.dataStart;
+        long previous = -1;
+        for (int i = 0; i < count; i++) {
+            long start = this.skipBlank(this.lineStart(this.dataStart, this.dataStart + length / count * i), this.dataEnd);
+            if (start < this.dataEnd && start != previous) {
+                starts.add(start);
+                previous = start;
+            }
+        }
+        starts.add(this.dataEnd);
+        Partition[] partitions = new Partition[starts.size() - 1];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(starts.get(i), starts.get(i + 1));
+        }
+        return partitions;
+    }
+
+    /**
+     * Start of the line at or following offset
+     *
+     * @param from   start of a line, at or before offset
+     * @param offset
+     * @return
+     */
+    private long lineStart(long from, long offset) {
+        return offset == from || this.get(offset - 1) == '\n' ? offset : this.nextLine(offset);
+    }
+
+    private long skipBlank(long offset, long limit) {
+        while (offset < limit) {
+            byte b = this.get(offset);
+            if (b != '\n' && b != '\r') {
+                break;
+            }
+            offset++;
+        }
+        return offset;
+    }
+
+    private byte get(long offset) {
+        return this.segments[(int) (offset / SEGMENT_SIZE)].get((int) (offset % SEGMENT_SIZE));
+    }
+
+    /**
+     * Start of the next line
+     *
+     * @param offset offset in current line
+     * @return start of the next line, or size of file
+     */
+    private long nextLine(long offset) {
+        if (offset >= this.size) {
+            return this.size;
+        }
+        MappedByteBuffer segment = this.segments[(int) (offset / SEGMENT_SIZE)];
+        int limit = segment.limit();
+        for (int i = (int) (offset % SEGMENT_SIZE); i < limit; i++) {
+            if (segment.get(i) == '\n') {
+                return offset - offset % SEGMENT_SIZE + i + 1;
+            }
+        }
+        long end = offset - offset % SEGMENT_SIZE + limit;
+        if (end < this.size) {
+            throw new IllegalStateException("Line too long at offset: " + offset);
+        }
+        return end;
+    }
+
+    /**
+     * Parse line into fields, double quoted fields may contain commas and escaped quotes ("")
+     *
+     * @param start start of line
+     * @param end   start of the next line
+     * @return
+     */
+    private String[] parse(long start, long end) {
+        ByteBuffer segment = this.segments[(int) (start / SEGMENT_SIZE)].duplicate();
+        int from = (int) (start % SEGMENT_SIZE);
+        int to = from + (int) (end - start);
+        while (to > from && (segment.get(to - 1) == '\n' || segment.get(to - 1) == '\r')) {
+            to--;
+        }
+        byte[] line = new byte[to - from];
+        segment.position(from);
+        segment.get(line);
+        List<String> fields = new ArrayList<>(this.header == null ? 8 : this.header.length);
+        byte[] field = new byte[line.length];
+        int length = 0;
+        boolean quoted = false;
+        for (int i = 0; i < line.length; i++) {
+            byte b = line[i];
+            if (quoted) {
+                if (b != '"') {
+                    field[length++] = b;
+                } else if (i + 1 < line.length && line[i + 1] == '"') {
+                    field[length++] = b;
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (b == '"') {
+                quoted = true;
+            } else if (b == ',') {
+                fields.add(new String(field, 0, length, StandardCharsets.UTF_8));
+                length = 0;
+            } else {
+                field[length++] = b;
+            }
+        }
+        fields.add(new String(field, 0, length, StandardCharsets.UTF_8));
+        return fields.toArray(new String[0]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Records from start (inclusive) to end (exclusive), read sequentially and wrapping
+     */
+    private static class Partition {
+
+        private final long start;
+
+        private final long end;
+
+        /**
+         * Offset of the next record (guarded by this)
+         */
+        private long position;
+
+        private Partition(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.position = start;
+        }
+    }
+}
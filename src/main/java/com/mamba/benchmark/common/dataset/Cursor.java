@@ -0,0 +1,24 @@
+package com.mamba.benchmark.common.dataset;
+
+/**
+ * Order in which records of a dataset are read
+ */
+public enum Cursor {
+
+    /**
+     * One cursor shared by all threads, from the first record to the last, then again from the first
+     */
+    SEQUENTIAL,
+
+    /**
+     * Record at a random offset for each read
+     */
+    RANDOM,
+
+    /**
+     * File split into partitions at line boundaries, each walked sequentially by its own cursor. Reads rotate over the
+     * partitions, so all of them are read evenly whichever threads generate tasks, and threads contend on one partition
+     * instead of the whole file
+     */
+    PARTITIONED
+}
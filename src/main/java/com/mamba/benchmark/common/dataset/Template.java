@@ -0,0 +1,97 @@
+package com.mamba.benchmark.common.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Text with ${column} placeholders, compiled once and rendered per record
+ */
+public class Template {
+
+    private static final String PREFIX = "${";
+
+    private static final String SUFFIX = "}";
+
+    /**
+     * Literal texts, one more than placeholders
+     */
+    private final String[] literals;
+
+    /**
+     * Column index of each placeholder
+     */
+    private final int[] columns;
+
+    private final int length;
+
+    private Template(String[] literals, int[] columns) {
+        this.literals = literals;
+        this.columns = columns;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.length = length;
+    }
+
+    public static boolean hasPlaceholder(String text) {
+        return text != null && text.contains(PREFIX);
+    }
+
+    /**
+     * Compile text
+     *
+     * @param text    text with placeholders
+     * @param columns resolves column name to index, negative if not found
+     * @return
+     */
+    public static Template compile(String text, ToIntFunction<String> columns) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int from = 0;
+        for (int begin = text.indexOf(PREFIX); begin >= 0; begin = text.indexOf(PREFIX, from)) {
+            int end = text.indexOf(SUFFIX, begin + PREFIX.length());
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder: " + text.substring(begin));
+            }
+            String name = text.substring(begin + PREFIX.length(), end);
+            int index = columns.applyAsInt(name);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown column: " + name);
+            }
+            literals.add(text.substring(from, begin));
+            indexes.add(index);
+            from = end + SUFFIX.length();
+        }
+        literals.add(text.substring(from));
+        return new Template(literals.toArray(new String[0]), indexes.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public String render(String[] record) {
+        return this.render(record, null);
+    }
+
+    /**
+     * Render with the values encoded, literals are kept as written
+     *
+     * @param record
+     * @param encoder encodes each value, null to keep values raw
+     * @return
+     */
+    public String render(String[] record, UnaryOperator<String> encoder) {
+        if (this.columns.length == 0) {
+            return this.literals[0];
+        }
+        StringBuilder builder = new StringBuilder(this.length + this.columns.length * 16);
+        for (int i = 0; i < this.columns.length; i++) {
+            builder.append(this.literals[i]);
+            int column = this.columns[i];
+            if (column < record.length) {
+                builder.append(encoder == null ? record[column] : encoder.apply(record[column]));
+            }
+        }
+        return builder.append(this.literals[this.columns.length]).toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.mamba.benchmark.common.executor;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arrival process of open-loop tasks
+ */
+public enum Arrival {
+
+    /**
+     * Evenly spaced arrivals
+     */
+    UNIFORM {
+        @Override
+        public long nextInterval(int rate) {
+            return NANOS_PER_SECOND / rate;
+        }
+    },
+
+    /**
+     * Poisson arrivals, exponentially distributed intervals
+     */
+    POISSON {
+        @Override
+        public long nextInterval(int rate) {
+            return (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * NANOS_PER_SECOND / rate);
+        }
+    };
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Interval to the next arrival
+     *
+     * @param rate arrivals per second, greater than 0
+     * @return interval in nanoseconds
+     */
+    public abstract long nextInterval(int rate);
+}
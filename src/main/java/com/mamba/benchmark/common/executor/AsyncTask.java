@@ -0,0 +1,16 @@
+package com.mamba.benchmark.common.executor;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking task, completion is signalled by the returned future
+ */
+public interface AsyncTask extends Runnable {
+
+    /**
+     * Start task without blocking
+     *
+     * @return future completed when the task is done
+     */
+    CompletableFuture<?> start();
+}
@@ -1,18 +1,28 @@
 package com.mamba.benchmark.common.executor;
 
 import com.mamba.benchmark.common.executor.impl.ConcurrencyExecutor;
+import com.mamba.benchmark.common.executor.impl.MeteredThreadPoolExecutor;
 import com.mamba.benchmark.common.executor.impl.ThroughputExecutor;
+import com.mamba.benchmark.common.executor.impl.VirtualThreadExecutor;
+import com.mamba.benchmark.common.executor.impl.VirtualUserExecutor;
+import com.mamba.benchmark.common.jfr.FlightEvents;
+import com.mamba.benchmark.common.metrics.MetricsWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntConsumer;
 import java.util.function.IntFunction;
 import java.util.function.IntSupplier;
 
 public abstract class PressureExecutor<T extends Runnable> implements Closeable {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(PressureExecutor.class);
+
     /**
      * Concurrency limiter
      */
@@ -29,17 +39,27 @@ public abstract class PressureExecutor<T extends Runnable> implements Closeable
     protected final ScheduledThreadPoolExecutor preparer;
 
     /**
-     * Task executor
+     * Task executor, null if tasks are non-blocking and run on the dispatching thread
      */
-    protected final ThreadPoolExecutor executor;
+    protected final MeteredThreadPoolExecutor executor;
+
+    /**
+     * Listeners of the one-second tick
+     */
+    private final List<IntConsumer> listeners = new CopyOnWriteArrayList<>();
 
     protected volatile boolean shutdown = false;
 
-    public PressureExecutor(IntSupplier limiter, IntFunction<List<T>> generator, ScheduledThreadPoolExecutor preparer, ThreadPoolExecutor executor) {
+    /**
+     * Limit at the last tick
+     */
+    private volatile int tickLimit;
+
+    public PressureExecutor(IntSupplier limiter, IntFunction<List<T>> generator, ScheduledThreadPoolExecutor preparer, MeteredThreadPoolExecutor executor) {
         this.limiter = Objects.requireNonNull(limiter);
         this.generator = Objects.requireNonNull(generator);
         this.preparer = Objects.requireNonNull(preparer);
-        this.executor = Objects.requireNonNull(executor);
+        this.executor = executor;
     }
 
     public abstract void start(long delay);
@@ -53,7 +73,9 @@ public abstract class PressureExecutor<T extends Runnable> implements Closeable
         } catch (Exception e) {
         }
         this.shutdown = true;
-        this.executor.shutdownNow();
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
         this.preparer.shutdownNow();
     }
 
@@ -67,6 +89,59 @@ public abstract class PressureExecutor<T extends Runnable> implements Closeable
         return limit;
     }
 
+    /**
+     * Generate tasks, recorded as a flight event when enabled
+     *
+     * @param num
+     * @return
+     */
+    protected final List<T> apply(int num) {
+        Object event = FlightEvents.beginGenerate();
+        List<T> tasks = this.generator.apply(num);
+        FlightEvents.endGenerate(event, this.getClass().getSimpleName(), num, tasks == null ? 0 : tasks.size());
+        return tasks;
+    }
+
+    /**
+     * Add listener of the one-second tick
+     *
+     * @param listener accepts the current limit
+     */
+    public void addListener(IntConsumer listener) {
+        this.listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Notify listeners, invoked once per second
+     *
+     * @param limit current limit
+     */
+    protected final void tick(int limit) {
+        this.tickLimit = limit;
+        for (IntConsumer listener : this.listeners) {
+            try {
+                listener.accept(limit);
+            } catch (Exception e) {
+                LOGGER.error("tick listener error: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Write metrics of executor, read from lock-free meters
+     *
+     * @param writer
+     */
+    public void collect(MetricsWriter writer) {
+        writer.gauge("benchmark_executor_limit", "Target quantity of pressure at the last tick", this.tickLimit);
+        if (this.executor != null) {
+            writer.gauge("benchmark_executor_workers", "Live threads of task executor", this.executor.getWorkers());
+            writer.gauge("benchmark_executor_active_tasks", "Tasks being executed", this.executor.getActiveTasks());
+            writer.gauge("benchmark_executor_queued_tasks", "Tasks waiting in queue of task executor", this.executor.getQueuedTasks());
+            writer.counter("benchmark_executor_completed_tasks_total", "Tasks executed", this.executor.getCompletedTasks());
+        }
+    }
+
     protected void await() {
         do {
             synchronized (this) {
@@ -83,7 +158,23 @@ public abstract class PressureExecutor<T extends Runnable> implements Closeable
         return new ConcurrencyExecutor<>(generator, concurrency);
     }
 
+    public static <T extends Runnable> VirtualThreadExecutor<T> virtualThreads(IntFunction<List<T>> generator, IntSupplier concurrency) {
+        return new VirtualThreadExecutor<>(generator, concurrency);
+    }
+
+    public static <T extends AsyncTask> VirtualUserExecutor<T> virtualUsers(IntFunction<List<T>> generator, IntSupplier concurrency) {
+        return new VirtualUserExecutor<>(generator, concurrency);
+    }
+
     public static <T extends Runnable> ThroughputExecutor<T> throughput(IntFunction<List<T>> generator, IntSupplier throughput) {
         return new ThroughputExecutor<>(generator, throughput);
     }
+
+    public static <T extends Runnable> ThroughputExecutor<T> throughput(IntFunction<List<T>> generator, IntSupplier throughput, Arrival arrival) {
+        return new ThroughputExecutor<>(generator, throughput, arrival);
+    }
+
+    public static <T extends Runnable> ThroughputExecutor<T> throughput(IntFunction<List<T>> generator, IntSupplier throughput, Arrival arrival, boolean async) {
+        return new ThroughputExecutor<>(generator, throughput, arrival, async);
+    }
 }
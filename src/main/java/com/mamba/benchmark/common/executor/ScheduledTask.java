@@ -0,0 +1,14 @@
+package com.mamba.benchmark.common.executor;
+
+/**
+ * Open-loop task carrying its own start time (e.g. replayed from a log), dispatched at its offset instead of by the arrival process
+ */
+public interface ScheduledTask extends Runnable {
+
+    /**
+     * Start time relative to the start of executor
+     *
+     * @return offset in nanoseconds
+     */
+    long getOffset();
+}
@@ -0,0 +1,20 @@
+package com.mamba.benchmark.common.executor;
+
+/**
+ * Task aware of its intended start time, so that latency can be measured from the schedule rather than from the actual send
+ */
+@FunctionalInterface
+public interface TimedTask extends Runnable {
+
+    /**
+     * Run task
+     *
+     * @param intendedTime intended start time, in {@link System#nanoTime()}
+     */
+    void run(long intendedTime);
+
+    @Override
+    default void run() {
+        this.run(System.nanoTime());
+    }
+}
@@ -1,6 +1,7 @@
 package com.mamba.benchmark.common.executor.impl;
 
 import com.mamba.benchmark.common.executor.PressureExecutor;
+import com.mamba.benchmark.common.jfr.FlightEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -8,7 +9,6 @@ import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.IntFunction;
 import java.util.function.IntSupplier;
@@ -29,8 +29,8 @@ public class ConcurrencyExecutor<T extends Runnable> extends PressureExecutor<T>
         return new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("preparer", Thread.MAX_PRIORITY));
     }
 
-    private static ThreadPoolExecutor newInitExecutor() {
-        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new CustomThreadFactory("executor", Thread.MAX_PRIORITY));
+    private static MeteredThreadPoolExecutor newInitExecutor() {
+        return new MeteredThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new CustomThreadFactory("executor", Thread.MAX_PRIORITY));
     }
 
     @Override
@@ -70,7 +70,8 @@ public class ConcurrencyExecutor<T extends Runnable> extends PressureExecutor<T>
             if (timestamp > this.timestamp) {
                 this.timestamp = timestamp;
                 LOGGER.info("Stat: executor(core={},maximum={},workers={},queue={},active={},completed={}), Limit={}",
-                        this.executor.getCorePoolSize(), this.executor.getMaximumPoolSize(), this.executor.getPoolSize(), this.executor.getQueue().size(), this.executor.getActiveCount(), this.executor.getCompletedTaskCount(), nThreads);
+                        this.executor.getCorePoolSize(), this.executor.getMaximumPoolSize(), this.executor.getWorkers(), this.executor.getQueuedTasks(), this.executor.getActiveTasks(), this.executor.getCompletedTasks(), nThreads);
+                this.tick(nThreads);
             }
             if (nThreads <= 0) {
                 this.executor.purge();
@@ -91,7 +92,7 @@ public class ConcurrencyExecutor<T extends Runnable> extends PressureExecutor<T>
             List<T> tasks;
             long beginTime = System.nanoTime();
             try {
-                tasks = this.generator.apply(batchSize);
+                tasks = this.apply(batchSize);
             } catch (Exception e) {
                 LOGGER.error("generate tasks error: {}", e.getMessage(), e);
                 break;
@@ -129,6 +130,7 @@ public class ConcurrencyExecutor<T extends Runnable> extends PressureExecutor<T>
                 this.executor.setCorePoolSize(nThreads);
                 this.executor.setMaximumPoolSize(nThreads);
             }
+            FlightEvents.resize("ConcurrencyExecutor", current, nThreads);
         }
     }
 }
@@ -0,0 +1,72 @@
+package com.mamba.benchmark.common.executor.impl;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ThreadPoolExecutor counting its workers and tasks in LongAdders, so monitoring reads them without the main lock
+ * taken by {@link #getPoolSize()}, {@link #getActiveCount()} or {@link #getCompletedTaskCount()}
+ */
+public class MeteredThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final LongAdder workers;
+
+    private final LongAdder active = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    public MeteredThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, new LongAdder());
+    }
+
+    private MeteredThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, LongAdder workers) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, r -> threadFactory.newThread(() -> {
+            workers.increment();
+            try {
+                r.run();
+            } finally {
+                workers.decrement();
+            }
+        }));
+        this.workers = workers;
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        this.active.increment();
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        this.active.decrement();
+        this.completed.increment();
+    }
+
+    /**
+     * Live worker threads
+     */
+    public long getWorkers() {
+        return this.workers.sum();
+    }
+
+    /**
+     * Tasks being executed
+     */
+    public long getActiveTasks() {
+        return this.active.sum();
+    }
+
+    public long getCompletedTasks() {
+        return this.completed.sum();
+    }
+
+    /**
+     * Tasks waiting in queue, lock-free for LinkedBlockingQueue and SynchronousQueue
+     */
+    public int getQueuedTasks() {
+        return this.getQueue().size();
+    }
+}
@@ -0,0 +1,155 @@
+package com.mamba.benchmark.common.executor.impl;
+
+import com.mamba.benchmark.common.executor.Arrival;
+import com.mamba.benchmark.common.executor.ScheduledTask;
+import com.mamba.benchmark.common.stat.LatencyRecorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Open-loop pacer, dispatches tasks at nanosecond deadlines on a dedicated thread (spin-then-park).
+ * Deadlines follow the arrival process, or the offsets of {@link ScheduledTask} on a schedule that stops while paused
+ */
+class Pacer<T> implements Runnable {
+
+    /**
+     * Deadlines closer than this are awaited by spinning, farther ones by parking
+     */
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Interval of sampling the target rate
+     */
+    private static final long REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final IntSupplier rate;
+
+    private final Arrival arrival;
+
+    private final Supplier<T> tasks;
+
+    private final ObjLongConsumer<T> dispatcher;
+
+    /**
+     * Drift of actual dispatch time from deadline
+     */
+    private final LatencyRecorder drift;
+
+    private final long startTime;
+
+    private volatile boolean cancelled = false;
+
+    private volatile int currentRate;
+
+    /**
+     * Time paused at rate 0, scheduled tasks are delayed by it so that resuming does not dispatch the missed ones at once
+     * (written by pacer thread only)
+     */
+    private volatile long pausedNanos;
+
+    private long refreshTime;
+
+    /**
+     * @param rate       target rate (per second)
+     * @param arrival    arrival process
+     * @param tasks      task supplier, returns null if no task available
+     * @param dispatcher dispatches task with its deadline
+     * @param drift      drift recorder
+     * @param startTime  time of the first deadline, in {@link System#nanoTime()}
+     */
+    Pacer(IntSupplier rate, Arrival arrival, Supplier<T> tasks, ObjLongConsumer<T> dispatcher, LatencyRecorder drift, long startTime) {
+        this.rate = rate;
+        this.arrival = arrival;
+        this.tasks = tasks;
+        this.dispatcher = dispatcher;
+        this.drift = drift;
+        this.startTime = startTime;
+    }
+
+    void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Current target rate, sampled every {@link #REFRESH_NANOS} so that changes within a second are followed
+     *
+     * @return
+     */
+    int getCurrentRate() {
+        return this.currentRate;
+    }
+
+    /**
+     * Current offset on the schedule of {@link ScheduledTask}, the time since start minus the time paused
+     *
+     * @return offset in nanoseconds, negative before start
+     */
+    long getScheduleTime() {
+        return System.nanoTime() - this.startTime - this.pausedNanos;
+    }
+
+    @Override
+    public void run() {
+        awaitDeadline(this.startTime);
+        long previous = this.startTime;
+        int rate = 0;
+        long interval = 0;
+        T task = null;
+        while (!this.cancelled) {
+            int current = this.refreshRate(System.nanoTime());
+            if (current <= 0) {
+                long pauseTime = System.nanoTime();
+                LockSupport.parkNanos(REFRESH_NANOS);
+                previous = System.nanoTime();
+                this.pausedNanos += previous - pauseTime;
+                rate = 0;
+                continue;
+            }
+            if (rate == 0) {
+                interval = this.arrival.nextInterval(current);
+            } else if (rate != current) {
+                interval = interval * rate / current;
+            }
+            rate = current;
+            if (task == null) {
+                task = this.tasks.get();
+            }
+            //自带时间的任务按其偏移调度，不受到达过程约束
+            long deadline = task instanceof ScheduledTask ? this.startTime + this.pausedNanos + ((ScheduledTask) task).getOffset() : previous + interval;
+            long remaining = deadline - System.nanoTime();
+            if (remaining > SPIN_NANOS) {
+                //分段休眠，期间跟随目标速率变化
+                LockSupport.parkNanos(Math.min(remaining - SPIN_NANOS, REFRESH_NANOS));
+                continue;
+            }
+            awaitDeadline(deadline);
+            if (task != null) {
+                this.drift.record(System.nanoTime() - deadline);
+                this.dispatcher.accept(task, deadline);
+                task = null;
+            }
+            previous = deadline;
+            interval = this.arrival.nextInterval(rate);
+        }
+    }
+
+    private int refreshRate(long now) {
+        if (now - this.refreshTime >= REFRESH_NANOS || this.refreshTime == 0) {
+            this.currentRate = this.rate.getAsInt();
+            this.refreshTime = now;
+        }
+        return this.currentRate;
+    }
+
+    private void awaitDeadline(long deadline) {
+        for (long remaining = deadline - System.nanoTime(); remaining > 0 && !this.cancelled; remaining = deadline - System.nanoTime()) {
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            }
+        }
+    }
+}
@@ -1,20 +1,27 @@
 package com.mamba.benchmark.common.executor.impl;
 
+import com.mamba.benchmark.common.executor.Arrival;
 import com.mamba.benchmark.common.executor.PressureExecutor;
+import com.mamba.benchmark.common.executor.ScheduledTask;
+import com.mamba.benchmark.common.executor.TimedTask;
+import com.mamba.benchmark.common.jfr.FlightEvents;
+import com.mamba.benchmark.common.metrics.MetricsWriter;
+import com.mamba.benchmark.common.stat.Histogram;
+import com.mamba.benchmark.common.stat.LatencyRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 import java.util.Vector;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntFunction;
 import java.util.function.IntSupplier;
 
@@ -22,20 +29,104 @@ public class ThroughputExecutor<T extends Runnable> extends PressureExecutor<T>
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ThroughputExecutor.class);
 
+    /**
+     * Tasks generated at once for a schedule of {@link ScheduledTask}
+     */
+    private static final int SCHEDULED_BATCH = 1000;
+
+    /**
+     * How far ahead of the schedule {@link ScheduledTask} are buffered
+     */
+    private static final long SCHEDULED_AHEAD = TimeUnit.SECONDS.toNanos(2);
+
+    /**
+     * Min interval of waking preparer when the buffer runs dry
+     */
+    private static final long REFILL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Generated task batches, consumed by pacer
+     */
     private final LinkedBlockingQueue<List<T>> queue = new LinkedBlockingQueue<>();
 
-    private final Vector<ScheduledFuture<?>> futures = new Vector<>(2);
+    /**
+     * Count of tasks in queue
+     */
+    private final AtomicInteger buffered = new AtomicInteger();
+
+    /**
+     * A refill of buffer is pending on preparer
+     */
+    private final AtomicBoolean refilling = new AtomicBoolean(false);
+
+    private final Vector<ScheduledFuture<?>> futures = new Vector<>(1);
+
+    private final Arrival arrival;
+
+    /**
+     * Drift of actual dispatch time from deadline
+     */
+    private final LatencyRecorder drift = new LatencyRecorder();
+
+    private volatile Pacer<T> pacer;
+
+    /**
+     * Tasks carry their own offsets (e.g. a replayed log), buffered by time rather than by target rate (accessed by
+     * preparer thread only)
+     */
+    private boolean scheduled;
+
+    /**
+     * Offset of the last buffered {@link ScheduledTask} (accessed by preparer thread only)
+     */
+    private long lastOffset;
+
+    /**
+     * Current batch of pacer (accessed by pacer thread only)
+     */
+    private List<T> batch = Collections.emptyList();
+
+    private int cursor;
+
+    /**
+     * Time of the last refill request (accessed by pacer thread only)
+     */
+    private long refillTime;
+
+    /**
+     * Drift snapshot of the previous second (accessed by preparer thread only)
+     */
+    private Histogram driftSnapshot = new Histogram();
 
     public ThroughputExecutor(IntFunction<List<T>> generator, IntSupplier throughput) {
-        super(throughput, generator, newPreparer(), newExecutor());
+        this(generator, throughput, Arrival.UNIFORM);
+    }
+
+    public ThroughputExecutor(IntFunction<List<T>> generator, IntSupplier throughput, Arrival arrival) {
+        this(generator, throughput, arrival, false);
+    }
+
+    /**
+     * @param generator
+     * @param throughput
+     * @param arrival
+     * @param async      tasks are non-blocking, run them on the pacer thread without executor
+     */
+    public ThroughputExecutor(IntFunction<List<T>> generator, IntSupplier throughput, Arrival arrival, boolean async) {
+        super(throughput, generator, newPreparer(), async ? null : newExecutor());
+        this.arrival = arrival;
     }
 
     private static ScheduledThreadPoolExecutor newPreparer() {
-        return new ScheduledThreadPoolExecutor(2, new CustomThreadFactory("preparer", Thread.MAX_PRIORITY));
+        return new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("preparer", Thread.MAX_PRIORITY));
+    }
+
+    private static MeteredThreadPoolExecutor newExecutor() {
+        return new MeteredThreadPoolExecutor(0, Integer.MAX_VALUE, 15L, TimeUnit.SECONDS, new SynchronousQueue<>(), new CustomThreadFactory("executor", Thread.MAX_PRIORITY));
     }
 
-    private static ThreadPoolExecutor newExecutor() {
-        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 15L, TimeUnit.SECONDS, new SynchronousQueue<>(), new CustomThreadFactory("executor", Thread.MAX_PRIORITY));
+    public LatencyRecorder getDrift() {
+        return drift;
     }
 
     @Override
@@ -46,8 +137,10 @@ public class ThroughputExecutor<T extends Runnable> extends PressureExecutor<T>
                     throw new RuntimeException("Executor has been shutdown");
                 }
                 if (this.futures.isEmpty()) {
+                    long startTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(delay, 1));
+                    this.pacer = new Pacer<>(this::getLimit, this.arrival, this::nextTask, this::dispatch, this.drift, startTime);
                     this.futures.add(this.preparer.scheduleAtFixedRate(() -> this.generate(), Math.max(delay - 1, 0), 1, TimeUnit.SECONDS));
-                    this.futures.add(this.preparer.scheduleAtFixedRate(() -> ThroughputExecutor.execute(this.queue, this.executor), Math.max(delay, 1) * 1000, 1, TimeUnit.MILLISECONDS));
+                    new CustomThreadFactory("pacer", Thread.MAX_PRIORITY).newThread(this.pacer).start();
                     this.await();
                 }
             }
@@ -61,99 +154,212 @@ public class ThroughputExecutor<T extends Runnable> extends PressureExecutor<T>
                 if (!this.futures.isEmpty()) {
                     this.futures.forEach(future -> future.cancel(true));
                     this.futures.clear();
+                    this.pacer.cancel();
                 }
             }
         }
     }
 
     /**
-     * Generate tasks
+     * Generate tasks, keep about two seconds of tasks buffered for pacer
      */
     private void generate() {
         int num = this.getLimit();
-        LOGGER.info("ThreadPool Stat: executor(core={},maximum={},workers={},queue={},active={},completed={}), preparer(core={},maximum={},workers={},queue={},active={},completed={}), Limit={}",
-                this.executor.getCorePoolSize(), this.executor.getMaximumPoolSize(), this.executor.getPoolSize(), this.executor.getQueue().size(), this.executor.getActiveCount(), this.executor.getCompletedTaskCount(),
-                this.preparer.getCorePoolSize(), this.preparer.getMaximumPoolSize(), this.executor.getPoolSize(), this.preparer.getQueue().size(), this.preparer.getActiveCount(), this.preparer.getCompletedTaskCount(),
-                num);
+        //计数器读取，不加线程池锁
+        if (this.executor != null) {
+            LOGGER.info("ThreadPool Stat: executor(core={},maximum={},workers={},queue={},active={},completed={}), Limit={}",
+                    this.executor.getCorePoolSize(), this.executor.getMaximumPoolSize(), this.executor.getWorkers(), this.executor.getQueuedTasks(), this.executor.getActiveTasks(), this.executor.getCompletedTasks(),
+                    num);
+        } else {
+            LOGGER.info("ThreadPool Stat: Limit={}", num);
+        }
+        this.logPacer();
+        this.tick(num);
+        this.prepare(num);
+    }
+
+    /**
+     * Refill buffer ahead of the next second, requested by pacer when the buffer runs dry (target raised within a second)
+     */
+    private void refill() {
+        try {
+            this.prepare(this.getLimit());
+        } finally {
+            this.refilling.set(false);
+        }
+    }
+
+    /**
+     * Keep about two seconds of tasks at the current limit buffered, or a time horizon of {@link ScheduledTask}
+     *
+     * @param num current limit
+     */
+    private void prepare(int num) {
         if (num <= 0) {
             return;
         }
-        List<T> tasks;
+        if (this.scheduled) {
+            this.prepareScheduled();
+            return;
+        }
+        int buffered = this.buffered.get();
+        if (buffered >= num * 2) {
+            return;
+        }
         long beginTime = System.nanoTime();
-        try {
-            tasks = this.generator.apply(num);
-        } catch (Exception e) {
-            LOGGER.error("generate tasks error: {}", e.getMessage(), e);
+        List<T> tasks = this.generate(num * 2 - buffered);
+        if (tasks == null) {
             return;
         }
         long endTime = System.nanoTime();
-        LOGGER.info("prepared tasks: {}, latency: {} ns. current limit: {}", tasks.size(), (endTime - beginTime), num);
-        ThroughputExecutor.offer(this.queue, tasks, 1000);
+        LOGGER.info("prepared tasks: {}, latency: {} ns. current limit: {}, buffered: {}", tasks.size(), (endTime - beginTime), num, buffered);
+        //按100ms分批入队，使缓冲计数更平滑
+        this.enqueue(tasks, Math.max(num / 10, 1));
+        if (!tasks.isEmpty() && tasks.get(tasks.size() - 1) instanceof ScheduledTask) {
+            this.scheduled = true;
+            this.prepareScheduled();
+        }
     }
 
     /**
-     * Poll task from queue and do execute
-     *
-     * @param queue
-     * @param executor
-     * @param <T>
+     * Buffer tasks of a schedule up to {@link #SCHEDULED_AHEAD} past the current offset, so that peaks of the schedule
+     * above the target rate are not dispatched late
      */
-    private static <T extends Runnable> void execute(LinkedBlockingQueue<List<T>> queue, ExecutorService executor) {
-        List<T> tasks = queue.poll();
-        if (tasks == null || tasks.isEmpty()) {
-            return;
-        }
-        for (T task : tasks) {
-            if (task == null) {
-                continue;
+    private void prepareScheduled() {
+        long horizon = this.pacer.getScheduleTime() + SCHEDULED_AHEAD;
+        int count = 0;
+        while (this.lastOffset < horizon) {
+            List<T> tasks = this.generate(SCHEDULED_BATCH);
+            if (tasks == null || tasks.isEmpty()) {
+                break;
             }
-            executor.submit(task);
+            this.enqueue(tasks, SCHEDULED_BATCH / 10);
+            count += tasks.size();
+        }
+        if (count > 0) {
+            LOGGER.info("prepared scheduled tasks: {}, buffered: {}, ahead: {} ms", count, this.buffered.get(), TimeUnit.NANOSECONDS.toMillis(this.lastOffset - this.pacer.getScheduleTime()));
+        }
+    }
+
+    private void enqueue(List<T> tasks, int batchSize) {
+        int size = tasks.size();
+        for (int fromIndex = 0; fromIndex < size; fromIndex += batchSize) {
+            List<T> batch = tasks.subList(fromIndex, Math.min(fromIndex + batchSize, size));
+            this.queue.offer(batch);
+            this.buffered.addAndGet(batch.size());
+        }
+        T last = size == 0 ? null : tasks.get(size - 1);
+        if (last instanceof ScheduledTask) {
+            this.lastOffset = ((ScheduledTask) last).getOffset();
         }
     }
 
+    private List<T> generate(int num) {
+        try {
+            return this.apply(num);
+        } catch (Exception e) {
+            LOGGER.error("generate tasks error: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public void collect(MetricsWriter writer) {
+        super.collect(writer);
+        Pacer<T> pacer = this.pacer;
+        writer.gauge("benchmark_pacer_rate", "Current dispatch rate of pacer, per second", pacer == null ? 0 : pacer.getCurrentRate());
+        writer.gauge("benchmark_pacer_buffered_tasks", "Generated tasks waiting for dispatch", this.buffered.get());
+        writer.histogram("benchmark_dispatch_drift_seconds", "Drift of actual dispatch time from deadline", this.drift.snapshot());
+    }
+
+    private void logPacer() {
+        Pacer<T> pacer = this.pacer;
+        if (pacer == null) {
+            return;
+        }
+        Histogram snapshot = this.drift.snapshot();
+        Histogram window = snapshot.minus(this.driftSnapshot);
+        this.driftSnapshot = snapshot;
+        LOGGER.info("Pacer Stat: rate={}, buffered={}, dispatched={}, drift(p50={},p99={},max={}) ns",
+                pacer.getCurrentRate(), this.buffered.get(), window.getTotalCount(), window.getValueAtPercentile(50), window.getValueAtPercentile(99), window.getMaxValue());
+    }
+
     /**
-     * Split and insert elements into queue
+     * Next task for pacer, never generates tasks itself: if the buffer runs dry the slot is skipped and preparer is
+     * woken to refill, so that generators are called by preparer only
      *
-     * @param queue
-     * @param elements
-     * @param shards
-     * @param <E>
+     * @return null if no task buffered
      */
-    private static <E> void offer(LinkedBlockingQueue<List<E>> queue, List<E> elements, int shards) {
-        if (elements.isEmpty()) {
+    private T nextTask() {
+        for (; ; ) {
+            while (this.cursor < this.batch.size()) {
+                T task = this.batch.get(this.cursor++);
+                if (task != null) {
+                    return task;
+                }
+            }
+            List<T> tasks = this.queue.poll();
+            if (tasks == null) {
+                this.requestRefill();
+                return null;
+            }
+            this.buffered.addAndGet(-tasks.size());
+            this.batch = tasks;
+            this.cursor = 0;
+        }
+    }
+
+    private void requestRefill() {
+        long now = System.nanoTime();
+        if (this.refillTime != 0 && now - this.refillTime < REFILL_NANOS) {
             return;
         }
-        int size = elements.size();
-        int sizePerShard = size / shards;
-        int[] ints = splitRemainder(size % shards, shards);
-        int random = new Random().nextInt(shards);
-        for (int i = 0, fromIndex = 0, toIndex; i < shards; i++) {
-            int delta = sizePerShard + ints[(i + random) % shards];
-            if (delta == 0) {
-                queue.offer(Collections.emptyList());
-            } else {
-                toIndex = fromIndex + delta;
-                queue.offer(elements.subList(fromIndex, toIndex));
-                fromIndex = toIndex;
+        if (this.refilling.compareAndSet(false, true)) {
+            this.refillTime = now;
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("buffer runs dry, wake preparer");
+            }
+            try {
+                this.preparer.execute(this::refill);
+            } catch (RejectedExecutionException e) {
+                this.refilling.set(false);
             }
         }
     }
 
     /**
-     * split remainder
+     * Submit task to executor (or run it on the pacer thread in async mode), the deadline is the intended start time of task
      *
-     * @param shards
-     * @param remainder
-     * @return
-     */
-    private static int[] splitRemainder(int remainder, int shards) {
-        int[] ints = new int[shards];
-        if (remainder > 0) {
-            float delta = shards / remainder;
-            for (int i = 0; i < remainder; i++) {
-                ints[Math.round(delta * i)] = 1;
+     * @param task
+     * @param deadline
+     */
+    private void dispatch(T task, long deadline) {
+        if (this.executor == null) {
+            FlightEvents.dispatch(deadline);
+            try {
+                if (task instanceof TimedTask) {
+                    ((TimedTask) task).run(deadline);
+                } else {
+                    task.run();
+                }
+            } catch (Exception e) {
+                LOGGER.error("execute task error: {}", e.getMessage(), e);
             }
+            return;
+        }
+        //启用JFR时, lag包含在线程池队列中等待的时间
+        if (task instanceof TimedTask) {
+            this.executor.execute(() -> {
+                FlightEvents.dispatch(deadline);
+                ((TimedTask) task).run(deadline);
+            });
+        } else if (FlightEvents.isEnabled()) {
+            this.executor.execute(() -> {
+                FlightEvents.dispatch(deadline);
+                task.run();
+            });
+        } else {
+            this.executor.execute(task);
         }
-        return ints;
     }
 }
@@ -0,0 +1,196 @@
+package com.mamba.benchmark.common.executor.impl;
+
+import com.mamba.benchmark.common.executor.PressureExecutor;
+import com.mamba.benchmark.common.metrics.MetricsWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * Closed-loop executor running each user on its own virtual thread (JDK 21+), blocking tasks scale without pool resizing
+ */
+public class VirtualThreadExecutor<T extends Runnable> extends PressureExecutor<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadExecutor.class);
+
+    private final LinkedBlockingQueue<T> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * Count of running users
+     */
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final ThreadFactory threadFactory = VirtualThreads.newThreadFactory("user-");
+
+    private volatile ScheduledFuture<?> future;
+
+    /**
+     * Current user limit, users with index out of limit retire after their current task
+     */
+    private volatile int limit;
+
+    /**
+     * Users (accessed by preparer thread only)
+     */
+    private final List<User> users = new ArrayList<>();
+
+    private int timestamp;
+
+    public VirtualThreadExecutor(IntFunction<List<T>> generator, IntSupplier concurrency) {
+        super(concurrency, generator, newPreparer(), null);
+    }
+
+    private static ScheduledThreadPoolExecutor newPreparer() {
+        return new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("preparer", Thread.MAX_PRIORITY));
+    }
+
+    @Override
+    public final void start(long delay) {
+        if (this.future == null) {
+            synchronized (this) {
+                if (this.shutdown) {
+                    throw new RuntimeException("Executor has been shutdown");
+                }
+                if (this.future == null) {
+                    this.future = this.preparer.scheduleWithFixedDelay(this::prepare, Math.max(delay, 1) * 1000, 1, TimeUnit.MILLISECONDS);
+                    this.await();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected final void cancel() {
+        if (this.future != null) {
+            synchronized (this) {
+                if (this.future != null) {
+                    this.future.cancel(true);
+                    this.future = null;
+                    this.limit = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void collect(MetricsWriter writer) {
+        super.collect(writer);
+        writer.gauge("benchmark_users_active", "Users running a task", this.active.get());
+        writer.gauge("benchmark_users_queued_tasks", "Generated tasks waiting for a user", this.queue.size());
+    }
+
+    /**
+     * Follow the user limit and prepare tasks
+     */
+    private void prepare() {
+        int timestamp = (int) (System.currentTimeMillis() / 1000);
+        int nUsers = this.getLimit();
+        if (timestamp > this.timestamp) {
+            this.timestamp = timestamp;
+            LOGGER.info("Stat: users(limit={},active={}), queue={}", this.limit, this.active.get(), this.queue.size());
+            this.tick(nUsers);
+        }
+        if (nUsers <= 0) {
+            this.limit = 0;
+            return;
+        }
+        int batchSize = Math.max(nUsers, 10);
+        int queueSize = this.queue.size();
+        if (queueSize <= batchSize / 2) {
+            List<T> tasks;
+            long beginTime = System.nanoTime();
+            try {
+                tasks = this.apply(batchSize);
+            } catch (Exception e) {
+                LOGGER.error("generate tasks error: {}", e.getMessage(), e);
+                return;
+            }
+            long endTime = System.nanoTime();
+            LOGGER.info("prepared tasks: {}, latency: {} ns. Current users: {}, queueSize: {}", tasks.size(), (endTime - beginTime), nUsers, queueSize);
+            for (T task : tasks) {
+                if (task != null) {
+                    this.queue.offer(task);
+                }
+            }
+        }
+        int previous = this.limit;
+        this.limit = nUsers;
+        for (int i = this.users.size(); i < nUsers; i++) {
+            this.users.add(new User(i));
+        }
+        for (int i = previous; i < nUsers; i++) {
+            this.users.get(i).start();
+        }
+    }
+
+    /**
+     * User running tasks one by one on a virtual thread
+     */
+    private final class User implements Runnable {
+
+        private final int index;
+
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        private User(int index) {
+            this.index = index;
+        }
+
+        private boolean isOutOfLimit() {
+            return shutdown || this.index >= limit;
+        }
+
+        void start() {
+            if (this.running.compareAndSet(false, true)) {
+                active.incrementAndGet();
+                threadFactory.newThread(this).start();
+            }
+        }
+
+        @Override
+        public void run() {
+            for (; ; ) {
+                this.runTasks();
+                this.running.set(false);
+                active.decrementAndGet();
+                //退出前再次检查，避免与start竞争
+                if (this.isOutOfLimit() || !this.running.compareAndSet(false, true)) {
+                    return;
+                }
+                active.incrementAndGet();
+            }
+        }
+
+        private void runTasks() {
+            while (!this.isOutOfLimit()) {
+                T task;
+                try {
+                    task = queue.poll(10, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (task == null) {
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("execute task error: {}", e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.mamba.benchmark.common.executor.impl;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads (JDK 21+), resolved by reflection so that the build keeps targeting Java 8
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = getOfVirtual();
+
+    /**
+     * Whether a virtual thread can be created, false on JDK 19/20 without --enable-preview where Thread.ofVirtual exists
+     * but throws
+     */
+    private static final boolean SUPPORTED = probe();
+
+    private VirtualThreads() {
+    }
+
+    private static Method getOfVirtual() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static boolean probe() {
+        if (OF_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            //创建但不启动
+            create("probe-").newThread(() -> {
+            });
+            return true;
+        } catch (RuntimeException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * Factory of virtual threads named prefix + sequence
+     *
+     * @param prefix thread name prefix
+     * @return
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        if (!SUPPORTED) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by Java " + System.getProperty("java.version"));
+        }
+        return create(prefix);
+    }
+
+    private static ThreadFactory create(String prefix) {
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Create virtual thread factory error: " + e.getMessage(), e);
+        }
+    }
+}
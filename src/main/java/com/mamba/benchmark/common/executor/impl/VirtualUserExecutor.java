@@ -0,0 +1,278 @@
+package com.mamba.benchmark.common.executor.impl;
+
+import com.mamba.benchmark.common.executor.AsyncTask;
+import com.mamba.benchmark.common.executor.PressureExecutor;
+import com.mamba.benchmark.common.metrics.MetricsWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * Closed-loop executor without thread per user, each virtual user issues its next task from the completion callback of the previous one
+ */
+public class VirtualUserExecutor<T extends AsyncTask> extends PressureExecutor<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualUserExecutor.class);
+
+    /**
+     * Generated tasks, consumed by virtual users
+     */
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Count of tasks in queue
+     */
+    private final AtomicInteger buffered = new AtomicInteger();
+
+    /**
+     * Count of running virtual users
+     */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * Virtual users waiting for tasks, restarted by preparer once tasks are buffered
+     */
+    private final ConcurrentLinkedQueue<VirtualUser> parked = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Count of parked virtual users
+     */
+    private final AtomicInteger parkedCount = new AtomicInteger();
+
+    /**
+     * Count of virtual users stopped abnormally
+     */
+    private final AtomicLong stopped = new AtomicLong();
+
+    private volatile ScheduledFuture<?> future;
+
+    /**
+     * Current user limit, users with index out of limit retire after their current task
+     */
+    private volatile int limit;
+
+    /**
+     * Virtual users (accessed by preparer thread only)
+     */
+    private final List<VirtualUser> users = new ArrayList<>();
+
+    private int timestamp;
+
+    public VirtualUserExecutor(IntFunction<List<T>> generator, IntSupplier concurrency) {
+        super(concurrency, generator, newPreparer(), null);
+    }
+
+    private static ScheduledThreadPoolExecutor newPreparer() {
+        return new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("preparer", Thread.MAX_PRIORITY));
+    }
+
+    @Override
+    public final void start(long delay) {
+        if (this.future == null) {
+            synchronized (this) {
+                if (this.shutdown) {
+                    throw new RuntimeException("Executor has been shutdown");
+                }
+                if (this.future == null) {
+                    this.future = this.preparer.scheduleWithFixedDelay(this::prepare, Math.max(delay, 1) * 1000, 1, TimeUnit.MILLISECONDS);
+                    this.await();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected final void cancel() {
+        if (this.future != null) {
+            synchronized (this) {
+                if (this.future != null) {
+                    this.future.cancel(true);
+                    this.future = null;
+                    this.limit = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void collect(MetricsWriter writer) {
+        super.collect(writer);
+        writer.gauge("benchmark_users_active", "Users running a task", this.active.get());
+        writer.gauge("benchmark_users_queued_tasks", "Generated tasks waiting for a user", this.buffered.get());
+        writer.gauge("benchmark_users_parked", "Users waiting for generated tasks", this.parkedCount.get());
+        writer.counter("benchmark_users_stopped_total", "Users stopped abnormally", this.stopped.get());
+    }
+
+    /**
+     * Follow the user limit and prepare tasks
+     */
+    private void prepare() {
+        int timestamp = (int) (System.currentTimeMillis() / 1000);
+        int nUsers = this.getLimit();
+        if (timestamp > this.timestamp) {
+            this.timestamp = timestamp;
+            LOGGER.info("Stat: users(limit={},active={},parked={},stopped={}), queue={}", this.limit, this.active.get(), this.parkedCount.get(), this.stopped.get(), this.buffered.get());
+            this.tick(nUsers);
+        }
+        if (nUsers <= 0) {
+            this.limit = 0;
+            this.resumeUsers();
+            return;
+        }
+        int batchSize = Math.max(nUsers, 10);
+        int queueSize = this.buffered.get();
+        if (queueSize <= batchSize / 2) {
+            List<T> tasks;
+            long beginTime = System.nanoTime();
+            try {
+                tasks = this.apply(batchSize);
+            } catch (Exception e) {
+                LOGGER.error("generate tasks error: {}", e.getMessage(), e);
+                return;
+            }
+            long endTime = System.nanoTime();
+            LOGGER.info("prepared tasks: {}, latency: {} ns. Current users: {}, queueSize: {}", tasks.size(), (endTime - beginTime), nUsers, queueSize);
+            for (T task : tasks) {
+                if (task != null) {
+                    this.queue.offer(task);
+                }
+            }
+            this.buffered.addAndGet(tasks.size());
+        }
+        int previous = this.limit;
+        this.limit = nUsers;
+        this.resumeUsers();
+        if (nUsers > previous) {
+            this.startUsers(previous, nUsers);
+        }
+    }
+
+    /**
+     * Restart parked users once tasks are buffered, or to retire those out of limit
+     */
+    private void resumeUsers() {
+        boolean available = !this.queue.isEmpty();
+        for (int i = this.parkedCount.get(); i > 0; i--) {
+            VirtualUser user = this.parked.poll();
+            if (user == null) {
+                break;
+            }
+            this.parkedCount.decrementAndGet();
+            if (available || user.isOutOfLimit()) {
+                //队列再次为空时会重新挂起
+                user.loop();
+            } else {
+                this.park(user);
+            }
+        }
+    }
+
+    private void park(VirtualUser user) {
+        this.parkedCount.incrementAndGet();
+        this.parked.offer(user);
+    }
+
+    private void startUsers(int fromIndex, int toIndex) {
+        for (int i = this.users.size(); i < toIndex; i++) {
+            this.users.add(new VirtualUser(i));
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            this.users.get(i).start();
+        }
+    }
+
+    /**
+     * Next buffered task, never generates tasks itself: it is called on completion callbacks (I/O threads)
+     *
+     * @return null if no task buffered
+     */
+    private T nextTask() {
+        T task = this.queue.poll();
+        if (task != null) {
+            this.buffered.decrementAndGet();
+        }
+        return task;
+    }
+
+    /**
+     * Virtual user, a chain of completion callbacks
+     */
+    private final class VirtualUser implements BiConsumer<Object, Throwable> {
+
+        private final int index;
+
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        private VirtualUser(int index) {
+            this.index = index;
+        }
+
+        private boolean isOutOfLimit() {
+            return shutdown || this.index >= limit;
+        }
+
+        void start() {
+            if (this.running.compareAndSet(false, true)) {
+                active.incrementAndGet();
+                this.loop();
+            }
+        }
+
+        private void loop() {
+            if (this.isOutOfLimit()) {
+                this.running.set(false);
+                active.decrementAndGet();
+                //退出前再次检查，避免与start竞争
+                if (this.isOutOfLimit() || !this.running.compareAndSet(false, true)) {
+                    return;
+                }
+                active.incrementAndGet();
+            }
+            T task = nextTask();
+            if (task == null) {
+                //队列为空时挂起，由preparer补充任务后恢复
+                park(this);
+                return;
+            }
+            CompletableFuture<?> future = null;
+            try {
+                future = task.start();
+            } catch (Exception e) {
+                LOGGER.error("execute task error: {}", e.getMessage(), e);
+            }
+            if (future != null && !future.isDone()) {
+                future.whenComplete(this);
+                return;
+            }
+            //同步完成（如立即失败）时稍后重试，避免在回调线程上递归
+            try {
+                preparer.schedule(this::loop, 1, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                this.running.set(false);
+                active.decrementAndGet();
+                if (!shutdown) {
+                    stopped.incrementAndGet();
+                    LOGGER.warn("virtual user {} stopped: {}", this.index, e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void accept(Object result, Throwable t) {
+            this.loop();
+        }
+    }
+}
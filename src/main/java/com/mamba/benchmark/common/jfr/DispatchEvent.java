@@ -0,0 +1,21 @@
+package com.mamba.benchmark.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.mamba.benchmark.Dispatch")
+@Label("Task Dispatch")
+@Description("Task handed to the executor by the pacer, late by the lag")
+@Category({"Benchmark", "Executor"})
+@StackTrace(false)
+final class DispatchEvent extends jdk.jfr.Event {
+
+    @Label("Lag")
+    @Description("Delay from the intended start of task")
+    @Timespan(Timespan.NANOSECONDS)
+    long lag;
+}
@@ -0,0 +1,120 @@
+package com.mamba.benchmark.common.jfr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Custom Flight Recorder events of task generation, dispatch, requests and pool resizes. Disabled by default, every
+ * call is then a read of a static field, and jdk.jfr is never loaded, so the load generator still runs on JVMs without
+ * Flight Recorder (jdk.jfr comes with 8u262+ and 11+)
+ */
+public final class FlightEvents {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightEvents.class);
+
+    /**
+     * Written once before the run, read without synchronization on hot paths
+     */
+    private static boolean enabled;
+
+    private FlightEvents() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start a recording of the events, along with the default JVM events
+     *
+     * @param destination recording file, written when stopped
+     * @return false if Flight Recorder is not available
+     */
+    public static synchronized boolean start(File destination) {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+        } catch (ClassNotFoundException e) {
+            LOGGER.warn("Flight Recorder not supported by this JVM, events disabled");
+            return false;
+        }
+        try {
+            if (!FlightRecording.isAvailable()) {
+                LOGGER.warn("Flight Recorder not available, events disabled");
+                return false;
+            }
+            FlightRecording.start(destination);
+        } catch (Exception e) {
+            LOGGER.warn("Flight Recorder start error, events disabled: {}", e.getMessage(), e);
+            return false;
+        }
+        enabled = true;
+        LOGGER.info("Flight recording to {}", destination);
+        return true;
+    }
+
+    /**
+     * Stop the recording and write it to its destination
+     */
+    public static synchronized void stop() {
+        if (enabled) {
+            enabled = false;
+            FlightRecording.stop();
+        }
+    }
+
+    /**
+     * @return event to pass to {@link #endGenerate}, null if disabled
+     */
+    public static Object beginGenerate() {
+        return enabled ? FlightRecording.beginGenerate() : null;
+    }
+
+    /**
+     * @param event     returned by {@link #beginGenerate()}
+     * @param executor  name of executor
+     * @param requested tasks requested from generator
+     * @param generated tasks generated
+     */
+    public static void endGenerate(Object event, String executor, int requested, int generated) {
+        if (event != null) {
+            FlightRecording.endGenerate(event, executor, requested, generated);
+        }
+    }
+
+    /**
+     * @param deadline intended start of task, in System.nanoTime()
+     */
+    public static void dispatch(long deadline) {
+        if (enabled) {
+            FlightRecording.dispatch(System.nanoTime() - deadline);
+        }
+    }
+
+    /**
+     * @return event to pass to {@link #endRequest}, null if disabled
+     */
+    public static Object beginRequest() {
+        return enabled ? FlightRecording.beginRequest() : null;
+    }
+
+    /**
+     * @param event        returned by {@link #beginRequest()}, null for requests failed before sent
+     * @param status       status of response, 0 for errors
+     * @param error        simple name of exception, null for responses
+     * @param bodySize     bytes of response body
+     * @param responseTime latency from the intended start, in nanoseconds
+     */
+    public static void endRequest(Object event, int status, String error, long bodySize, long responseTime) {
+        if (enabled) {
+            FlightRecording.endRequest(event, status, error, bodySize, responseTime);
+        }
+    }
+
+    public static void resize(String executor, int from, int to) {
+        if (enabled) {
+            FlightRecording.resize(executor, from, to);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.mamba.benchmark.common.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * The only class referring to jdk.jfr besides the events, loaded once recording is enabled
+ */
+final class FlightRecording {
+
+    private static Recording recording;
+
+    private FlightRecording() {
+    }
+
+    static boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+
+    static void start(File destination) throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName("benchmark");
+        recording.setToDisk(true);
+        recording.setDestination(destination.toPath());
+        recording.start();
+        FlightRecording.recording = recording;
+    }
+
+    /**
+     * Stop recording, which writes it to destination
+     */
+    static void stop() {
+        Recording recording = FlightRecording.recording;
+        if (recording != null) {
+            FlightRecording.recording = null;
+            recording.stop();
+            recording.close();
+        }
+    }
+
+    static Object beginGenerate() {
+        GenerateEvent event = new GenerateEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endGenerate(Object obj, String executor, int requested, int generated) {
+        GenerateEvent event = (GenerateEvent) obj;
+        event.end();
+        if (event.shouldCommit()) {
+            event.executor = executor;
+            event.requested = requested;
+            event.generated = generated;
+            event.commit();
+        }
+    }
+
+    static void dispatch(long lag) {
+        DispatchEvent event = new DispatchEvent();
+        if (event.shouldCommit()) {
+            event.lag = lag;
+            event.commit();
+        }
+    }
+
+    static Object beginRequest() {
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endRequest(Object obj, int status, String error, long bodySize, long responseTime) {
+        RequestEvent event = obj == null ? new RequestEvent() : (RequestEvent) obj;
+        event.end();
+        if (event.shouldCommit()) {
+            event.status = status;
+            event.error = error;
+            event.bodySize = bodySize;
+            event.responseTime = responseTime;
+            event.commit();
+        }
+    }
+
+    static void resize(String executor, int from, int to) {
+        ResizeEvent event = new ResizeEvent();
+        if (event.shouldCommit()) {
+            event.executor = executor;
+            event.from = from;
+            event.to = to;
+            event.commit();
+        }
+    }
+}
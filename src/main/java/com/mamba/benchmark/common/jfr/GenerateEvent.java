@@ -0,0 +1,24 @@
+package com.mamba.benchmark.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.mamba.benchmark.Generate")
+@Label("Task Generation")
+@Description("Batch of tasks generated for the pressure executor")
+@Category({"Benchmark", "Executor"})
+@StackTrace(false)
+final class GenerateEvent extends jdk.jfr.Event {
+
+    @Label("Executor")
+    String executor;
+
+    @Label("Requested")
+    int requested;
+
+    @Label("Generated")
+    int generated;
+}
@@ -0,0 +1,32 @@
+package com.mamba.benchmark.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.mamba.benchmark.Request")
+@Label("HTTP Request")
+@Description("Request from its send to the end of response, or to its error")
+@Category({"Benchmark", "HTTP"})
+@StackTrace(false)
+final class RequestEvent extends jdk.jfr.Event {
+
+    @Label("Status")
+    int status;
+
+    @Label("Error")
+    String error;
+
+    @Label("Body Size")
+    @DataAmount
+    long bodySize;
+
+    @Label("Response Time")
+    @Description("Latency from the intended start, including the time queued in the load generator")
+    @Timespan(Timespan.NANOSECONDS)
+    long responseTime;
+}
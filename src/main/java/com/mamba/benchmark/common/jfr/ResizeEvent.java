@@ -0,0 +1,24 @@
+package com.mamba.benchmark.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.mamba.benchmark.Resize")
+@Label("Pool Resize")
+@Description("Thread pool of the pressure executor resized to the target concurrency")
+@Category({"Benchmark", "Executor"})
+@StackTrace(false)
+final class ResizeEvent extends jdk.jfr.Event {
+
+    @Label("Executor")
+    String executor;
+
+    @Label("From")
+    int from;
+
+    @Label("To")
+    int to;
+}
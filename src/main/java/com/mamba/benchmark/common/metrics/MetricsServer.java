@@ -0,0 +1,131 @@
+package com.mamba.benchmark.common.metrics;
+
+import com.mamba.benchmark.common.executor.impl.CustomThreadFactory;
+import com.mamba.benchmark.common.stat.Statistics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Embedded endpoint serving metrics in Prometheus text format at /metrics. Collectors run on the scrape thread and
+ * only read LongAdder meters and lock-free latency recorders, so scraping does not slow down the load generator
+ */
+public class MetricsServer implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsServer.class);
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final List<Consumer<MetricsWriter>> collectors = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param port listening port, 0 for any free port
+     * @throws IOException
+     */
+    public MetricsServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newSingleThreadExecutor(new CustomThreadFactory("metrics"));
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/metrics", this::handle);
+        this.server.start();
+        LOGGER.info("Metrics served at http://{}:{}/metrics", this.server.getAddress().getHostString(), this.getPort());
+    }
+
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Add collector, called at each scrape
+     *
+     * @param collector
+     */
+    public void addCollector(Consumer<MetricsWriter> collector) {
+        this.collectors.add(Objects.requireNonNull(collector));
+    }
+
+    /**
+     * Add statistics of requests
+     *
+     * @param snapshots cumulative snapshots of statistics
+     * @param labels    label names and values alternately, e.g. endpoint and its name
+     */
+    public void addStatistics(Supplier<Statistics.Snapshot> snapshots, String... labels) {
+        this.addCollector(writer -> collect(writer, snapshots.get(), labels));
+    }
+
+    private static void collect(MetricsWriter writer, Statistics.Snapshot snapshot, String... labels) {
+        writer.counter("benchmark_requests_total", "Requests sent", snapshot.getRequests(), labels);
+        for (int i = 0; i <= 5; i++) {
+            writer.counter("benchmark_responses_total", "Responses by status class", snapshot.getStatuses(i), with(labels, "status", i == 0 ? "other" : i + "xx"));
+        }
+        writer.gauge("benchmark_inflight_requests", "Requests waiting for response", snapshot.getInflight(), labels);
+        writer.counter("benchmark_successes_total", "Responses passing their assertions", snapshot.getSuccesses(), labels);
+        snapshot.getFailures().forEach((category, count) ->
+                writer.counter("benchmark_failures_total", "Responses failing assertions by category", count, with(labels, "category", category)));
+        snapshot.getErrors().forEach((error, count) ->
+                writer.counter("benchmark_errors_total", "Requests without response by exception", count, with(labels, "error", error)));
+        writer.counter("benchmark_bytes_in_total", "Bytes of responses", snapshot.getBytesIn(), labels);
+        writer.counter("benchmark_bytes_out_total", "Bytes of requests", snapshot.getBytesOut(), labels);
+        writer.counter("benchmark_connections_opened_total", "Connections opened", snapshot.getConnectionsOpened(), labels);
+        writer.counter("benchmark_connections_reused_total", "Requests served by pooled connections", snapshot.getConnectionsReused(), labels);
+        writer.counter("benchmark_connections_closed_total", "Connections closed", snapshot.getConnectionsClosed(), labels);
+        writer.counter("benchmark_connection_timeouts_total", "Connect timeouts and request timeouts closing connections", snapshot.getConnectionTimeouts(), labels);
+        writer.histogram("benchmark_response_time_seconds", "Latency from the intended start to the response or error", snapshot.getResponseTime(), labels);
+        writer.histogram("benchmark_service_time_seconds", "Latency from the actual send to the response", snapshot.getServiceTime(), labels);
+        writer.histogram("benchmark_pool_wait_seconds", "Wait for a connection until the request is written", snapshot.getPoolWait(), labels);
+    }
+
+    private static String[] with(String[] labels, String name, String value) {
+        String[] all = new String[labels.length + 2];
+        System.arraycopy(labels, 0, all, 0, labels.length);
+        all[labels.length] = name;
+        all[labels.length + 1] = value;
+        return all;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            MetricsWriter writer = new MetricsWriter();
+            for (Consumer<MetricsWriter> collector : this.collectors) {
+                try {
+                    collector.accept(writer);
+                } catch (Exception e) {
+                    LOGGER.error("collect metrics error: {}", e.getMessage(), e);
+                }
+            }
+            byte[] body = writer.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+}
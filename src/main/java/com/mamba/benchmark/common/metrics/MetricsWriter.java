@@ -0,0 +1,121 @@
+package com.mamba.benchmark.common.metrics;
+
+import com.mamba.benchmark.common.stat.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Samples of one scrape in Prometheus text format, grouped by metric family whatever the order they are written in
+ */
+public class MetricsWriter {
+
+    /**
+     * Upper bounds of latency histogram buckets, in seconds
+     */
+    private static final double[] LATENCY_BOUNDS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * @param name   metric name, with _total suffix
+     * @param help
+     * @param value
+     * @param labels label names and values, alternately
+     * @return
+     */
+    public MetricsWriter counter(String name, String help, double value, String... labels) {
+        this.family(name, "counter", help).sample(name, labels, null, value);
+        return this;
+    }
+
+    public MetricsWriter gauge(String name, String help, double value, String... labels) {
+        this.family(name, "gauge", help).sample(name, labels, null, value);
+        return this;
+    }
+
+    /**
+     * Latency histogram, cumulative over the run
+     *
+     * @param name      metric name, with _seconds suffix
+     * @param help
+     * @param histogram latencies in nanoseconds
+     * @param labels    label names and values, alternately
+     * @return
+     */
+    public MetricsWriter histogram(String name, String help, Histogram histogram, String... labels) {
+        Family family = this.family(name, "histogram", help);
+        for (double bound : LATENCY_BOUNDS) {
+            family.sample(name + "_bucket", labels, format(bound), histogram.getCountAtOrBelow((long) (bound * 1e9)));
+        }
+        long count = histogram.getTotalCount();
+        family.sample(name + "_bucket", labels, "+Inf", count);
+        family.sample(name + "_sum", labels, null, histogram.getMean() * count / 1e9);
+        family.sample(name + "_count", labels, null, count);
+        return this;
+    }
+
+    private Family family(String name, String type, String help) {
+        return this.families.computeIfAbsent(name, k -> new Family(k, type, help));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Family family : this.families.values()) {
+            text.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            text.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            text.append(family.samples);
+        }
+        return text.toString();
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static class Family {
+
+        private final String name;
+
+        private final String type;
+
+        private final String help;
+
+        private final StringBuilder samples = new StringBuilder();
+
+        private Family(String name, String type, String help) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+        }
+
+        private void sample(String name, String[] labels, String le, double value) {
+            this.samples.append(name);
+            if (labels.length > 0 || le != null) {
+                this.samples.append('{');
+                for (int i = 0; i + 1 < labels.length; i += 2) {
+                    if (i > 0) {
+                        this.samples.append(',');
+                    }
+                    this.samples.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+                }
+                if (le != null) {
+                    if (labels.length > 0) {
+                        this.samples.append(',');
+                    }
+                    this.samples.append("le=\"").append(le).append('"');
+                }
+                this.samples.append('}');
+            }
+            this.samples.append(' ').append(format(value)).append('\n');
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.mamba.benchmark.common.pressure;
+
+import java.util.Objects;
+
+/**
+ * Share of a pressure for one of several load generators, the shares of all generators add up to the pressure
+ */
+public class Split extends Pressure {
+
+    private final Pressure pressure;
+
+    private final int index;
+
+    private final int count;
+
+    /**
+     * @param pressure pressure of the whole run
+     * @param index    index of generator, in [0, count)
+     * @param count    generator count
+     */
+    public Split(Pressure pressure, int index, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid index: " + index);
+        }
+        this.pressure = Objects.requireNonNull(pressure);
+        this.index = index;
+        this.count = count;
+    }
+
+    @Override
+    protected int getQuantity(int offset) {
+        int quantity = this.pressure.getQuantity(offset);
+        if (quantity <= 0) {
+            return quantity;
+        }
+        //余数分给前几个
+        return quantity / this.count + (this.index < quantity % this.count ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Split)) return false;
+        Split split = (Split) o;
+        return index == split.index &&
+                count == split.count &&
+                pressure.equals(split.pressure);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(pressure, index, count);
+    }
+
+    @Override
+    public String toString() {
+        return "Split{" +
+                "pressure=" + pressure +
+                ", index=" + index +
+                ", count=" + count +
+                '}';
+    }
+}
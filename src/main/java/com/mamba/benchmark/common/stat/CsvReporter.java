@@ -0,0 +1,146 @@
+package com.mamba.benchmark.common.stat;
+
+import com.mamba.benchmark.common.executor.impl.CustomThreadFactory;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Per-second time-series report, one CSV row per tick of the pressure executor
+ */
+public class CsvReporter implements IntConsumer, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CsvReporter.class);
+
+    private static final String[] HEADER = {"timestamp", "target", "requests", "responses", "inflight", "errors", "error_classes",
+            "successes", "failures", "failure_classes",
+            "status_1xx", "status_2xx", "status_3xx", "status_4xx", "status_5xx", "bytes_in", "bytes_out",
+            "rt_p50_ms", "rt_p90_ms", "rt_p99_ms", "rt_p999_ms", "rt_max_ms", "st_p50_ms", "st_p99_ms",
+            "conn_opened", "conn_reused", "conn_closed", "conn_timeouts", "pool_wait_p50_ms", "pool_wait_p99_ms"};
+
+    /**
+     * Statistics snapshotted at each tick, null if windows are merged elsewhere
+     */
+    private final Statistics statistics;
+
+    private final CSVPrinter printer;
+
+    /**
+     * Single writer thread, keeps snapshot and file I/O off the executor threads
+     */
+    private final ExecutorService writer;
+
+    private Statistics.Snapshot previous;
+
+    public CsvReporter(Statistics statistics, File file) throws IOException {
+        this.statistics = statistics;
+        BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+        this.printer = new CSVPrinter(out, CSVFormat.DEFAULT.withHeader(HEADER));
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new CustomThreadFactory("reporter"));
+        this.previous = statistics == null ? null : statistics.snapshot();
+    }
+
+    /**
+     * Reporter of windows given by {@link #report(Statistics.Snapshot, int)}, e.g. merged from several load generators
+     *
+     * @param file
+     * @throws IOException
+     */
+    public CsvReporter(File file) throws IOException {
+        this(null, file);
+    }
+
+    /**
+     * Tick of the pressure executor
+     *
+     * @param target current target quantity
+     */
+    @Override
+    public void accept(int target) {
+        if (this.statistics == null) {
+            return;
+        }
+        try {
+            this.writer.execute(() -> this.write(target));
+        } catch (Exception e) {
+            LOGGER.warn("report rejected: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Write a window of one second
+     *
+     * @param window values recorded in the window
+     * @param target target quantity of the window
+     */
+    public void report(Statistics.Snapshot window, int target) {
+        try {
+            this.writer.execute(() -> this.write(window, target));
+        } catch (Exception e) {
+            LOGGER.warn("report rejected: {}", e.getMessage());
+        }
+    }
+
+    private void write(int target) {
+        Statistics.Snapshot current = this.statistics.snapshot();
+        Statistics.Snapshot window = current.minus(this.previous);
+        this.previous = current;
+        this.write(window, target);
+    }
+
+    private void write(Statistics.Snapshot window, int target) {
+        Histogram rt = window.getResponseTime();
+        Histogram st = window.getServiceTime();
+        Histogram pw = window.getPoolWait();
+        try {
+            this.printer.printRecord(window.getTimestamp() / 1000, target, window.getRequests(), window.getResponses(), window.getInflight(),
+                    window.getErrorCount(), formatCounts(window.getErrors()),
+                    window.getSuccesses(), window.getFailureCount(), formatCounts(window.getFailures()),
+                    window.getStatuses(1), window.getStatuses(2), window.getStatuses(3), window.getStatuses(4), window.getStatuses(5),
+                    window.getBytesIn(), window.getBytesOut(),
+                    millis(rt.getValueAtPercentile(50)), millis(rt.getValueAtPercentile(90)), millis(rt.getValueAtPercentile(99)),
+                    millis(rt.getValueAtPercentile(99.9)), millis(rt.getMaxValue()),
+                    millis(st.getValueAtPercentile(50)), millis(st.getValueAtPercentile(99)),
+                    window.getConnectionsOpened(), window.getConnectionsReused(), window.getConnectionsClosed(), window.getConnectionTimeouts(),
+                    millis(pw.getValueAtPercentile(50)), millis(pw.getValueAtPercentile(99)));
+            this.printer.flush();
+        } catch (IOException e) {
+            LOGGER.error("write report error: {}", e.getMessage(), e);
+        }
+    }
+
+    private static String formatCounts(Map<String, Long> counts) {
+        StringJoiner joiner = new StringJoiner("|");
+        counts.forEach((name, count) -> joiner.add(name + '=' + count));
+        return joiner.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1000000.0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.shutdown();
+        try {
+            this.writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+        }
+        this.printer.close();
+    }
+}
@@ -0,0 +1,182 @@
+package com.mamba.benchmark.common.stat;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram (HdrHistogram-style buckets), relative error of recorded values is lower than 1%
+ */
+public class Histogram {
+
+    /**
+     * Sub-bucket bits per power of two
+     */
+    static final int SUB_BUCKET_BITS = 7;
+
+    /**
+     * Sub-bucket count per power of two
+     */
+    static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Bucket count, covering [0, Long.MAX_VALUE]
+     */
+    static final int LENGTH = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+    private final long[] counts;
+
+    private long totalCount;
+
+    public Histogram() {
+        this.counts = new long[LENGTH];
+    }
+
+    Histogram(long[] counts) {
+        if (counts.length != LENGTH) {
+            throw new IllegalArgumentException("Invalid counts length: " + counts.length);
+        }
+        this.counts = counts;
+        long totalCount = 0;
+        for (long count : counts) {
+            totalCount += count;
+        }
+        this.totalCount = totalCount;
+    }
+
+    public void record(long value) {
+        this.record(value, 1);
+    }
+
+    public void record(long value, long count) {
+        this.counts[indexOf(value)] += count;
+        this.totalCount += count;
+    }
+
+    public void add(Histogram other) {
+        for (int i = 0; i < LENGTH; i++) {
+            this.counts[i] += other.counts[i];
+        }
+        this.totalCount += other.totalCount;
+    }
+
+    /**
+     * Values recorded after the previous snapshot
+     *
+     * @param previous previous snapshot of the same recorder
+     * @return
+     */
+    public Histogram minus(Histogram previous) {
+        long[] counts = new long[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            counts[i] = this.counts[i] - previous.counts[i];
+        }
+        return new Histogram(counts);
+    }
+
+    public Histogram copy() {
+        return new Histogram(Arrays.copyOf(this.counts, LENGTH));
+    }
+
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    public long getCount(int index) {
+        return this.counts[index];
+    }
+
+    public long getMinValue() {
+        for (int i = 0; i < LENGTH; i++) {
+            if (this.counts[i] > 0) {
+                return lowestEquivalentValue(i);
+            }
+        }
+        return 0;
+    }
+
+    public long getMaxValue() {
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            if (this.counts[i] > 0) {
+                return highestEquivalentValue(i);
+            }
+        }
+        return 0;
+    }
+
+    public double getMean() {
+        if (this.totalCount == 0) {
+            return 0;
+        }
+        double total = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            if (this.counts[i] > 0) {
+                long lowest = lowestEquivalentValue(i);
+                total += (lowest + (highestEquivalentValue(i) - lowest) / 2.0) * this.counts[i];
+            }
+        }
+        return total / this.totalCount;
+    }
+
+    /**
+     * Count of values not greater than the given value, up to the precision of buckets
+     *
+     * @param value
+     * @return count of the buckets up to the one containing the value
+     */
+    public long getCountAtOrBelow(long value) {
+        int index = indexOf(Math.max(value, 0));
+        long total = 0;
+        for (int i = 0; i <= index; i++) {
+            total += this.counts[i];
+        }
+        return total;
+    }
+
+    /**
+     * Value at the given percentile
+     *
+     * @param percentile percentile in [0, 100]
+     * @return highest equivalent value of the bucket containing the percentile
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (this.totalCount == 0) {
+            return 0;
+        }
+        double p = Math.min(Math.max(percentile, 0), 100);
+        long countAtPercentile = Math.max((long) Math.ceil(p / 100 * this.totalCount), 1);
+        long total = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            total += this.counts[i];
+            if (total >= countAtPercentile) {
+                return highestEquivalentValue(i);
+            }
+        }
+        return 0;
+    }
+
+    static int indexOf(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid value: " + value);
+        }
+        if (value < (SUB_BUCKET_HALF_COUNT << 1)) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return exponent * SUB_BUCKET_HALF_COUNT + (int) (value >>> exponent);
+    }
+
+    static long lowestEquivalentValue(int index) {
+        if (index < (SUB_BUCKET_HALF_COUNT << 1)) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_HALF_COUNT - 1;
+        return ((long) (index - exponent * SUB_BUCKET_HALF_COUNT)) << exponent;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < (SUB_BUCKET_HALF_COUNT << 1)) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_HALF_COUNT - 1;
+        return (((long) (index - exponent * SUB_BUCKET_HALF_COUNT + 1)) << exponent) - 1;
+    }
+}
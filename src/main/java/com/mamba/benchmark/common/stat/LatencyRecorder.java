@@ -0,0 +1,51 @@
+package com.mamba.benchmark.common.stat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency recorder, each thread writes its own buckets, snapshots merge them without locks
+ */
+public class LatencyRecorder {
+
+    /**
+     * Buckets of all writer threads
+     */
+    private final List<AtomicLongArray> shards = new CopyOnWriteArrayList<>();
+
+    private final ThreadLocal<AtomicLongArray> shard = ThreadLocal.withInitial(this::newShard);
+
+    private AtomicLongArray newShard() {
+        AtomicLongArray shard = new AtomicLongArray(Histogram.LENGTH);
+        this.shards.add(shard);
+        return shard;
+    }
+
+    /**
+     * Record latency
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos) {
+        AtomicLongArray counts = this.shard.get();
+        int index = Histogram.indexOf(Math.max(nanos, 0));
+        //单线程写入，无需CAS
+        counts.lazySet(index, counts.get(index) + 1);
+    }
+
+    /**
+     * Cumulative snapshot of all recorded latencies
+     *
+     * @return
+     */
+    public Histogram snapshot() {
+        long[] counts = new long[Histogram.LENGTH];
+        for (AtomicLongArray shard : this.shards) {
+            for (int i = 0; i < Histogram.LENGTH; i++) {
+                counts[i] += shard.get(i);
+            }
+        }
+        return new Histogram(counts);
+    }
+}
@@ -0,0 +1,138 @@
+package com.mamba.benchmark.common.stat;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of snapshots: counters as zigzag varints, histograms as their non-empty buckets only,
+ * a one-second window of a busy run takes a few hundred bytes
+ */
+public final class SnapshotCodec {
+
+    private static final int STATUS_CLASSES = 6;
+
+    private SnapshotCodec() {
+    }
+
+    public static void write(DataOutput out, Statistics.Snapshot snapshot) throws IOException {
+        writeVarLong(out, snapshot.getTimestamp());
+        writeVarLong(out, snapshot.getRequests());
+        writeVarLong(out, snapshot.getResponses());
+        writeVarLong(out, snapshot.getInflight());
+        writeVarLong(out, snapshot.getBytesIn());
+        writeVarLong(out, snapshot.getBytesOut());
+        for (int i = 0; i < STATUS_CLASSES; i++) {
+            writeVarLong(out, snapshot.getStatuses(i));
+        }
+        writeCounts(out, snapshot.getErrors());
+        writeCounts(out, snapshot.getFailures());
+        writeHistogram(out, snapshot.getServiceTime());
+        writeHistogram(out, snapshot.getResponseTime());
+        writeVarLong(out, snapshot.getConnectionsOpened());
+        writeVarLong(out, snapshot.getConnectionsReused());
+        writeVarLong(out, snapshot.getConnectionsClosed());
+        writeVarLong(out, snapshot.getConnectionTimeouts());
+        writeHistogram(out, snapshot.getPoolWait());
+    }
+
+    public static Statistics.Snapshot read(DataInput in) throws IOException {
+        long timestamp = readVarLong(in);
+        long requests = readVarLong(in);
+        long responses = readVarLong(in);
+        long inflight = readVarLong(in);
+        long bytesIn = readVarLong(in);
+        long bytesOut = readVarLong(in);
+        long[] statuses = new long[STATUS_CLASSES];
+        for (int i = 0; i < STATUS_CLASSES; i++) {
+            statuses[i] = readVarLong(in);
+        }
+        Map<String, Long> errors = readCounts(in);
+        Map<String, Long> failures = readCounts(in);
+        Histogram serviceTime = readHistogram(in);
+        Histogram responseTime = readHistogram(in);
+        long[] connections = {readVarLong(in), readVarLong(in), readVarLong(in), readVarLong(in)};
+        Histogram poolWait = readHistogram(in);
+        return new Statistics.Snapshot(timestamp, requests, responses, inflight, bytesIn, bytesOut, statuses, errors, failures,
+                serviceTime, responseTime, connections, poolWait);
+    }
+
+    private static void writeCounts(DataOutput out, Map<String, Long> counts) throws IOException {
+        writeVarLong(out, counts.size());
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeVarLong(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, Long> readCounts(DataInput in) throws IOException {
+        int size = (int) readVarLong(in);
+        Map<String, Long> counts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            counts.put(in.readUTF(), readVarLong(in));
+        }
+        return counts;
+    }
+
+    /**
+     * Non-empty buckets, each as the index gap from the previous one and its count
+     */
+    private static void writeHistogram(DataOutput out, Histogram histogram) throws IOException {
+        int buckets = 0;
+        for (int i = 0; i < Histogram.LENGTH; i++) {
+            if (histogram.getCount(i) != 0) {
+                buckets++;
+            }
+        }
+        writeVarLong(out, buckets);
+        int previous = 0;
+        for (int i = 0; i < Histogram.LENGTH; i++) {
+            long count = histogram.getCount(i);
+            if (count != 0) {
+                writeVarLong(out, i - previous);
+                writeVarLong(out, count);
+                previous = i;
+            }
+        }
+    }
+
+    private static Histogram readHistogram(DataInput in) throws IOException {
+        long[] counts = new long[Histogram.LENGTH];
+        int buckets = (int) readVarLong(in);
+        int index = 0;
+        for (int i = 0; i < buckets; i++) {
+            index += (int) readVarLong(in);
+            if (index < 0 || index >= Histogram.LENGTH) {
+                throw new IOException("Invalid histogram bucket: " + index);
+            }
+            counts[index] = readVarLong(in);
+        }
+        return new Histogram(counts);
+    }
+
+    /**
+     * Zigzag varint, 1 byte for values in [-64, 63]
+     */
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    public static long readVarLong(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
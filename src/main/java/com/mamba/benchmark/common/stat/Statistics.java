@@ -0,0 +1,467 @@
+package com.mamba.benchmark.common.stat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a benchmark run
+ */
+public class Statistics {
+
+    /**
+     * Aggregate statistics also recording everything recorded here, nullable
+     */
+    private final Statistics parent;
+
+    /**
+     * Latency from the actual send to the response
+     */
+    private final LatencyRecorder serviceTime = new LatencyRecorder();
+
+    /**
+     * Latency from the intended start to the response or error, including the time queued in the load generator, so
+     * that timeouts under overload stay in the tail
+     */
+    private final LatencyRecorder responseTime = new LatencyRecorder();
+
+    /**
+     * Time waiting for a connection, pooled or new, until the request is written
+     */
+    private final LatencyRecorder poolWait = new LatencyRecorder();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder responses = new LongAdder();
+
+    private final LongAdder inflight = new LongAdder();
+
+    private final LongAdder bytesIn = new LongAdder();
+
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * Responses by status class (1xx ~ 5xx), index 0 for others
+     */
+    private final LongAdder[] statuses = newAdders(6);
+
+    /**
+     * Errors by exception class
+     */
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    /**
+     * Responses failing assertions by category, counted in responses but not in successes
+     */
+    private final ConcurrentMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    /**
+     * Connection lifecycle of the client
+     */
+    private final LongAdder connectionsOpened = new LongAdder();
+
+    private final LongAdder connectionsReused = new LongAdder();
+
+    private final LongAdder connectionsClosed = new LongAdder();
+
+    private final LongAdder connectionTimeouts = new LongAdder();
+
+    public Statistics() {
+        this(null);
+    }
+
+    /**
+     * @param parent aggregate statistics, e.g. of the whole run for statistics of one endpoint
+     */
+    public Statistics(Statistics parent) {
+        this.parent = parent;
+    }
+
+    private static LongAdder[] newAdders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public LatencyRecorder getServiceTime() {
+        return serviceTime;
+    }
+
+    public LatencyRecorder getResponseTime() {
+        return responseTime;
+    }
+
+    public LatencyRecorder getPoolWait() {
+        return poolWait;
+    }
+
+    public void onRequest() {
+        this.requests.increment();
+        this.inflight.increment();
+        if (this.parent != null) {
+            this.parent.onRequest();
+        }
+    }
+
+    /**
+     * Record response
+     *
+     * @param status       response status
+     * @param serviceTime  latency from the actual send, in nanoseconds
+     * @param responseTime latency from the intended start, in nanoseconds
+     */
+    public void onResponse(int status, long serviceTime, long responseTime) {
+        this.inflight.decrement();
+        this.responses.increment();
+        int statusClass = status / 100;
+        this.statuses[statusClass > 0 && statusClass < this.statuses.length ? statusClass : 0].increment();
+        this.serviceTime.record(serviceTime);
+        this.responseTime.record(responseTime);
+        if (this.parent != null) {
+            this.parent.onResponse(status, serviceTime, responseTime);
+        }
+    }
+
+    public void onError(Throwable t) {
+        this.inflight.decrement();
+        this.errors.computeIfAbsent(t.getClass().getSimpleName(), k -> new LongAdder()).increment();
+        if (this.parent != null) {
+            this.parent.onError(t);
+        }
+    }
+
+    /**
+     * Record error with its latency
+     *
+     * @param t
+     * @param responseTime latency from the intended start to the error, in nanoseconds
+     */
+    public void onError(Throwable t, long responseTime) {
+        this.inflight.decrement();
+        this.errors.computeIfAbsent(t.getClass().getSimpleName(), k -> new LongAdder()).increment();
+        this.responseTime.record(responseTime);
+        if (this.parent != null) {
+            this.parent.onError(t, responseTime);
+        }
+    }
+
+    /**
+     * Record a response failing its assertions, after {@link #onResponse(int, long, long)}
+     *
+     * @param category category of the failed assertion
+     */
+    public void onFailure(String category) {
+        this.failures.computeIfAbsent(category, k -> new LongAdder()).increment();
+        if (this.parent != null) {
+            this.parent.onFailure(category);
+        }
+    }
+
+    public void onBytesIn(long bytes) {
+        this.bytesIn.add(bytes);
+        if (this.parent != null) {
+            this.parent.onBytesIn(bytes);
+        }
+    }
+
+    public void onBytesOut(long bytes) {
+        this.bytesOut.add(bytes);
+        if (this.parent != null) {
+            this.parent.onBytesOut(bytes);
+        }
+    }
+
+    public void onConnectionOpened() {
+        this.connectionsOpened.increment();
+        if (this.parent != null) {
+            this.parent.onConnectionOpened();
+        }
+    }
+
+    /**
+     * Record a request served by a pooled connection
+     */
+    public void onConnectionReused() {
+        this.connectionsReused.increment();
+        if (this.parent != null) {
+            this.parent.onConnectionReused();
+        }
+    }
+
+    public void onConnectionClosed() {
+        this.connectionsClosed.increment();
+        if (this.parent != null) {
+            this.parent.onConnectionClosed();
+        }
+    }
+
+    /**
+     * Record a connect timeout, or a request timeout which closes its connection
+     */
+    public void onConnectionTimeout() {
+        this.connectionTimeouts.increment();
+        if (this.parent != null) {
+            this.parent.onConnectionTimeout();
+        }
+    }
+
+    /**
+     * Record the wait for a connection
+     *
+     * @param nanos from the execution of request until it is written, in nanoseconds
+     */
+    public void onPoolWait(long nanos) {
+        this.poolWait.record(nanos);
+        if (this.parent != null) {
+            this.parent.onPoolWait(nanos);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] statuses = new long[this.statuses.length];
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = this.statuses[i].sum();
+        }
+        Map<String, Long> errors = new HashMap<>();
+        this.errors.forEach((name, count) -> errors.put(name, count.sum()));
+        Map<String, Long> failures = new HashMap<>();
+        this.failures.forEach((name, count) -> failures.put(name, count.sum()));
+        return new Snapshot(System.currentTimeMillis(), this.requests.sum(), this.responses.sum(), this.inflight.sum(), this.bytesIn.sum(), this.bytesOut.sum(),
+                statuses, errors, failures, this.serviceTime.snapshot(), this.responseTime.snapshot(),
+                new long[]{this.connectionsOpened.sum(), this.connectionsReused.sum(), this.connectionsClosed.sum(), this.connectionTimeouts.sum()}, this.poolWait.snapshot());
+    }
+
+    /**
+     * Cumulative values at a point in time, or the difference between two points in time
+     */
+    public static class Snapshot {
+
+        private final long timestamp;
+
+        private final long requests;
+
+        private final long responses;
+
+        private final long inflight;
+
+        private final long bytesIn;
+
+        private final long bytesOut;
+
+        private final long[] statuses;
+
+        private final Map<String, Long> errors;
+
+        private final Map<String, Long> failures;
+
+        private final Histogram serviceTime;
+
+        private final Histogram responseTime;
+
+        /**
+         * Connections opened, reused, closed and timed out
+         */
+        private final long[] connections;
+
+        private final Histogram poolWait;
+
+        Snapshot(long timestamp, long requests, long responses, long inflight, long bytesIn, long bytesOut, long[] statuses, Map<String, Long> errors, Map<String, Long> failures,
+                 Histogram serviceTime, Histogram responseTime, long[] connections, Histogram poolWait) {
+            this.timestamp = timestamp;
+            this.requests = requests;
+            this.responses = responses;
+            this.inflight = inflight;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.statuses = statuses;
+            this.errors = Collections.unmodifiableMap(errors);
+            this.failures = Collections.unmodifiableMap(failures);
+            this.serviceTime = serviceTime;
+            this.responseTime = responseTime;
+            this.connections = connections;
+            this.poolWait = poolWait;
+        }
+
+        /**
+         * Values recorded after the previous snapshot, inflight keeps the current value
+         *
+         * @param previous
+         * @return
+         */
+        public Snapshot minus(Snapshot previous) {
+            long[] statuses = new long[this.statuses.length];
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = this.statuses[i] - previous.statuses[i];
+            }
+            long[] connections = new long[this.connections.length];
+            for (int i = 0; i < connections.length; i++) {
+                connections[i] = this.connections[i] - previous.connections[i];
+            }
+            return new Snapshot(this.timestamp, this.requests - previous.requests, this.responses - previous.responses, this.inflight,
+                    this.bytesIn - previous.bytesIn, this.bytesOut - previous.bytesOut, statuses, minus(this.errors, previous.errors), minus(this.failures, previous.failures),
+                    this.serviceTime.minus(previous.serviceTime), this.responseTime.minus(previous.responseTime), connections, this.poolWait.minus(previous.poolWait));
+        }
+
+        /**
+         * Values recorded by both, e.g. by two load generators over the same window, inflight is summed too
+         *
+         * @param other
+         * @return
+         */
+        public Snapshot plus(Snapshot other) {
+            return this.plus(other, this.inflight + other.inflight);
+        }
+
+        /**
+         * Values recorded up to the end of the next window, inflight is the one of the next window
+         *
+         * @param next window following this snapshot, of the same statistics
+         * @return
+         */
+        public Snapshot then(Snapshot next) {
+            return this.plus(next, next.inflight);
+        }
+
+        private Snapshot plus(Snapshot other, long inflight) {
+            long[] statuses = new long[this.statuses.length];
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = this.statuses[i] + other.statuses[i];
+            }
+            long[] connections = new long[this.connections.length];
+            for (int i = 0; i < connections.length; i++) {
+                connections[i] = this.connections[i] + other.connections[i];
+            }
+            return new Snapshot(Math.max(this.timestamp, other.timestamp), this.requests + other.requests, this.responses + other.responses, inflight,
+                    this.bytesIn + other.bytesIn, this.bytesOut + other.bytesOut, statuses, plus(this.errors, other.errors), plus(this.failures, other.failures),
+                    plus(this.serviceTime, other.serviceTime), plus(this.responseTime, other.responseTime), connections, plus(this.poolWait, other.poolWait));
+        }
+
+        private static Map<String, Long> plus(Map<String, Long> left, Map<String, Long> right) {
+            Map<String, Long> sum = new HashMap<>(left);
+            right.forEach((name, count) -> sum.merge(name, count, Long::sum));
+            return sum;
+        }
+
+        private static Histogram plus(Histogram left, Histogram right) {
+            Histogram sum = left.copy();
+            sum.add(right);
+            return sum;
+        }
+
+        private static Map<String, Long> minus(Map<String, Long> current, Map<String, Long> previous) {
+            Map<String, Long> delta = new HashMap<>();
+            current.forEach((name, count) -> {
+                long value = count - previous.getOrDefault(name, 0L);
+                if (value != 0) {
+                    delta.put(name, value);
+                }
+            });
+            return delta;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getResponses() {
+            return responses;
+        }
+
+        public long getInflight() {
+            return inflight;
+        }
+
+        public long getBytesIn() {
+            return bytesIn;
+        }
+
+        public long getBytesOut() {
+            return bytesOut;
+        }
+
+        /**
+         * Response count of status class
+         *
+         * @param statusClass 1 ~ 5, 0 for others
+         * @return
+         */
+        public long getStatuses(int statusClass) {
+            return statuses[statusClass];
+        }
+
+        public Map<String, Long> getErrors() {
+            return errors;
+        }
+
+        public long getErrorCount() {
+            return sum(this.errors);
+        }
+
+        /**
+         * Responses failing assertions by category
+         *
+         * @return
+         */
+        public Map<String, Long> getFailures() {
+            return failures;
+        }
+
+        public long getFailureCount() {
+            return sum(this.failures);
+        }
+
+        /**
+         * Responses passing their assertions, the basis of throughput
+         *
+         * @return
+         */
+        public long getSuccesses() {
+            return this.responses - this.getFailureCount();
+        }
+
+        private static long sum(Map<String, Long> counts) {
+            long count = 0;
+            for (long value : counts.values()) {
+                count += value;
+            }
+            return count;
+        }
+
+        public Histogram getServiceTime() {
+            return serviceTime;
+        }
+
+        public Histogram getResponseTime() {
+            return responseTime;
+        }
+
+        public long getConnectionsOpened() {
+            return connections[0];
+        }
+
+        public long getConnectionsReused() {
+            return connections[1];
+        }
+
+        public long getConnectionsClosed() {
+            return connections[2];
+        }
+
+        public long getConnectionTimeouts() {
+            return connections[3];
+        }
+
+        public Histogram getPoolWait() {
+            return poolWait;
+        }
+    }
+}
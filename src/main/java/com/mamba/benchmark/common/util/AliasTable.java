@@ -0,0 +1,80 @@
+package com.mamba.benchmark.common.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted random selection in O(1) without allocation (Vose's alias method), thread-safe
+ */
+public class AliasTable {
+
+    /**
+     * Probability of keeping the column, scaled to [0, 1]
+     */
+    private final double[] probabilities;
+
+    /**
+     * Alternative of each column
+     */
+    private final int[] aliases;
+
+    /**
+     * @param weights non-negative weights, at least one positive
+     */
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("Empty weights");
+        }
+        double sum = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Invalid weight: " + weight);
+            }
+            sum += weight;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("Invalid weights, sum: " + sum);
+        }
+        this.probabilities = new double[n];
+        this.aliases = new int[n];
+        double[] scaled = new double[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            (scaled[i] < 1 ? small : large).push(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            this.probabilities[less] = scaled[less];
+            this.aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            (scaled[more] < 1 ? small : large).push(more);
+        }
+        //剩余列（含浮点误差）概率为1
+        while (!large.isEmpty()) {
+            this.probabilities[large.pop()] = 1;
+        }
+        while (!small.isEmpty()) {
+            this.probabilities[small.pop()] = 1;
+        }
+    }
+
+    public int size() {
+        return this.probabilities.length;
+    }
+
+    /**
+     * Random index by weight
+     *
+     * @return
+     */
+    public int next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(this.probabilities.length);
+        return random.nextDouble() < this.probabilities[column] ? column : this.aliases[column];
+    }
+}
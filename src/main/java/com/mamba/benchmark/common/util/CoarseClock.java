@@ -0,0 +1,35 @@
+package com.mamba.benchmark.common.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Clock updated every 100 ms by a daemon thread so that readers never call into the OS. Readers only need whole
+ * seconds (the timestamp of trace ids), so a finer tick would just keep waking a thread during the test
+ */
+public final class CoarseClock {
+
+    private static final long RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static volatile long currentTimeMillis = System.currentTimeMillis();
+
+    static {
+        Thread thread = new Thread(CoarseClock::update, "coarse-clock");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private CoarseClock() {
+    }
+
+    private static void update() {
+        for (; ; ) {
+            currentTimeMillis = System.currentTimeMillis();
+            LockSupport.parkNanos(RESOLUTION_NANOS);
+        }
+    }
+
+    public static long currentTimeMillis() {
+        return currentTimeMillis;
+    }
+}
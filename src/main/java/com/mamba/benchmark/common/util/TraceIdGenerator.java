@@ -1,89 +1,107 @@
 package com.mamba.benchmark.common.util;
 
+import io.netty.util.AsciiString;
+
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class TraceIdGenerator {
 
-    private static final char[][] HEX_DICT = genHexDict();
+    /**
+     * 长度
+     */
+    public static final int LENGTH = 32;
+
+    private static final byte[][] HEX_DICT = genHexDict();
 
     /**
      * 本地地址
      */
-    private static final char[] IP = getLocalAddress();
+    private static final byte[] IP = getLocalAddress();
 
     /**
-     * 初始化初始向量（初始时间 + 线程ID）
+     * 线程本地状态（初始向量 + 自增序列段）
      */
-    private static final ThreadLocal<char[]> START_VALUE = ThreadLocal.withInitial(() -> genStartValue());
+    private static final ThreadLocal<LocalState> LOCAL_STATE = ThreadLocal.withInitial(LocalState::new);
 
     /**
-     * 自增序列（最小值）
+     * 自增序列（范围长度）
      */
-    private static final int SEQUENCER_MIN = 0x000000;
+    private static final int SEQUENCER_LEN = 0x1000000;
 
     /**
-     * 自增序列（最大值）
+     * 每次分配的序列段长度（整除范围长度，序列段不会跨越循环边界）
      */
-    private static final int SEQUENCER_MAX = 0xffffff;
+    private static final int SEQUENCER_BLOCK = 0x40;
 
     /**
-     * 自增序列（范围长度）
+     * 循环自增序列（按序列段分配）
      */
-    private static final int SEQUENCER_LEN = SEQUENCER_MAX - SEQUENCER_MIN + 1;
+    private static final AtomicInteger SEQUENCER = new AtomicInteger(0);
 
     /**
-     * 循环自增序列
+     * 来源标识
      */
-    private static final AtomicInteger SEQUENCER = new AtomicInteger(-1);
+    private final byte sign0;
 
-    public static String genTraceId(String sign) {
+    private final byte sign1;
+
+    public TraceIdGenerator(String sign) {
         if (sign == null || sign.isEmpty()) {
             throw new IllegalArgumentException("Empty sign!");
         }
-        if ((sign.length() != 2)) {
+        if (sign.length() != 2 || !isHex(sign.charAt(0)) || !isHex(sign.charAt(1))) {
             throw new IllegalArgumentException("Invalid sign: " + sign);
         }
-        return genTraceId(sign.charAt(0), sign.charAt(1));
+        this.sign0 = (byte) sign.charAt(0);
+        this.sign1 = (byte) sign.charAt(1);
     }
 
-//    public static String genTraceId(char[] sign) {
-//        if (sign == null || sign.length == 0) {
-//            throw new IllegalArgumentException("Empty sign!");
-//        }
-//        if ((sign.length != 2) || !isHex(sign[0]) || !isHex(sign[1])) {
-//            throw new IllegalArgumentException("Invalid sign: " + Arrays.toString(sign));
-//        }
-//        return genTraceId(sign[0], sign[1]);
-//    }
-
-    private static String genTraceId(char ch0, char ch1) {
-        if (!isHex(ch0) || !isHex(ch1)) {
-            throw new IllegalArgumentException("Invalid sign: " + ch0 + ch1);
-        }
-        char[] chars = new char[32];
+    /**
+     * 生成TraceId
+     *
+     * @return 包装新数组的AsciiString（无复制）
+     */
+    public AsciiString next() {
+        byte[] bytes = new byte[LENGTH];
+        this.write(bytes, 0);
+        return new AsciiString(bytes, false);
+    }
+
+    /**
+     * 将TraceId写入ASCII字节数组
+     *
+     * @param bytes  目标数组
+     * @param offset 初始位置
+     */
+    public void write(byte[] bytes, int offset) {
+        LocalState state = LOCAL_STATE.get();
         //IP（32bits，长度8）
-        copyHex(chars, IP, 0, 8);
+        System.arraycopy(IP, 0, bytes, offset, 8);
 
         //时间戳（32bits，长度8）
-        long timestamp = System.currentTimeMillis() / 1000;
-        copyHex(chars, timestamp, 8, 4);
+        copyHex(bytes, CoarseClock.currentTimeMillis() / 1000, offset + 8, 4);
 
         //初始向量（32bits，长度8）
-        copyHex(chars, START_VALUE.get(), 16, 8);
+        System.arraycopy(state.startValue, 0, bytes, offset + 16, 8);
 
         //自增序列（24bits，长度6）
-        int sequence = getSequence();
-        copyHex(chars, sequence, 24, 3);
+        copyHex(bytes, state.nextSequence(), offset + 24, 3);
 
         //来源标识（8bits，长度2）
-        chars[30] = ch0;
-        chars[31] = ch1;
-        return new String(chars);
+        bytes[offset + 30] = this.sign0;
+        bytes[offset + 31] = this.sign1;
+    }
+
+    public static String genTraceId(String sign) {
+        byte[] bytes = new byte[LENGTH];
+        new TraceIdGenerator(sign).write(bytes, 0);
+        return new String(bytes, StandardCharsets.US_ASCII);
     }
 
     private static boolean isHex(char ch) {
@@ -95,12 +113,12 @@ public class TraceIdGenerator {
      *
      * @return
      */
-    private static char[][] genHexDict() {
-        char[] chars = new char[0x10];
+    private static byte[][] genHexDict() {
+        byte[] chars = new byte[0x10];
         for (int i = 0; i < 0x10; i++) {
-            chars[i] = Integer.toHexString(i).charAt(0);
+            chars[i] = (byte) Integer.toHexString(i).charAt(0);
         }
-        char[][] dict = new char[0x100][2];
+        byte[][] dict = new byte[0x100][2];
         for (int i = 0; i < 0x100; i++) {
             dict[i][0] = chars[i / 0x10];
             dict[i][1] = chars[i % 0x10];
@@ -113,7 +131,7 @@ public class TraceIdGenerator {
      *
      * @return
      */
-    private static char[] getLocalAddress() {
+    private static byte[] getLocalAddress() {
         try {
             Enumeration interfaces = NetworkInterface.getNetworkInterfaces();
             while (interfaces.hasMoreElements()) {
@@ -141,78 +159,20 @@ public class TraceIdGenerator {
         throw new RuntimeException("Empty LocalAddress");
     }
 
-    /**
-     * 初始化初始向量（初始时间 + 线程ID）
-     *
-     * @return
-     */
-    private static char[] genStartValue() {
-        long currentTime = System.currentTimeMillis() / 1000;
-        long currentThread = Thread.currentThread().getId();
-        char[] chars = new char[8];
-        copyHex(chars, currentTime / 20, 0, 2);
-        copyHex(chars, currentThread, 4, 2);
-        return chars;
-    }
-
-    /**
-     * 获取自增序列
-     *
-     * @return
-     */
-    private static int getSequence() {
-        int sequence = SEQUENCER.incrementAndGet();
-        if (sequence < SEQUENCER_LEN) {
-            return SEQUENCER_MIN + sequence;
-        }
-        for (; ; ) {
-            int current = SEQUENCER.get();
-            if (current < SEQUENCER_LEN) {
-                break;
-            }
-            if (SEQUENCER.compareAndSet(current, current % SEQUENCER_LEN)) {
-                break;
-            }
-        }
-        return SEQUENCER_MIN + (sequence % SEQUENCER_LEN);
-    }
-
     /**
      * 转换成16进制字符串
      *
      * @param bytes
      * @return
      */
-    private static char[] toHex(byte[] bytes) {
-        char[] chars = new char[bytes.length * 2];
+    private static byte[] toHex(byte[] bytes) {
+        byte[] chars = new byte[bytes.length * 2];
         for (int i = 0; i < bytes.length; i++) {
-            System.arraycopy(toHex(bytes[i]), 0, chars, i * 2, 2);
+            System.arraycopy(HEX_DICT[bytes[i] & 0xff], 0, chars, i * 2, 2);
         }
         return chars;
     }
 
-    /**
-     * 转换成16进制字符串
-     *
-     * @param b
-     * @return
-     */
-    private static char[] toHex(byte b) {
-        return HEX_DICT[b & 0xff];
-    }
-
-    /**
-     * 复制16进制字符串
-     *
-     * @param chars  目标字符串
-     * @param src    原始字符串
-     * @param pos    初始位置
-     * @param length 复制长度
-     */
-    private static void copyHex(char[] chars, char[] src, int pos, int length) {
-        System.arraycopy(src, 0, chars, pos, length);
-    }
-
     /**
      * 复制16进制字符串
      *
@@ -221,9 +181,54 @@ public class TraceIdGenerator {
      * @param pos   初始位置
      * @param bytes 复制字节数
      */
-    private static void copyHex(char[] chars, long num, int pos, int bytes) {
+    private static void copyHex(byte[] chars, long num, int pos, int bytes) {
         for (int p = pos + (bytes - 1) * 2; p >= pos; p -= 2, num >>= 8) {
-            System.arraycopy(toHex((byte) (num & 0xff)), 0, chars, p, 2);
+            byte[] hex = HEX_DICT[(int) (num & 0xff)];
+            chars[p] = hex[0];
+            chars[p + 1] = hex[1];
+        }
+    }
+
+    /**
+     * 线程本地状态
+     */
+    private static class LocalState {
+
+        /**
+         * 初始向量（初始时间 + 线程ID）
+         */
+        private final byte[] startValue = new byte[8];
+
+        /**
+         * 当前序列段的下一个值
+         */
+        private int sequence;
+
+        /**
+         * 当前序列段剩余数量
+         */
+        private int remaining;
+
+        private LocalState() {
+            long currentTime = System.currentTimeMillis() / 1000;
+            long currentThread = Thread.currentThread().getId();
+            copyHex(this.startValue, currentTime / 20, 0, 2);
+            copyHex(this.startValue, currentThread, 4, 2);
+        }
+
+        /**
+         * 获取自增序列，每个序列段只需一次原子操作
+         *
+         * @return
+         */
+        private int nextSequence() {
+            if (this.remaining == 0) {
+                //int溢出后取低24位依然连续（范围长度整除2^32）
+                this.sequence = SEQUENCER.getAndAdd(SEQUENCER_BLOCK) & (SEQUENCER_LEN - 1);
+                this.remaining = SEQUENCER_BLOCK;
+            }
+            this.remaining--;
+            return this.sequence++;
         }
     }
 
@@ -4,19 +4,46 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.google.common.base.Charsets;
 import com.google.common.io.Files;
+import com.google.common.net.HostAndPort;
+import com.mamba.benchmark.common.cluster.Agent;
+import com.mamba.benchmark.common.cluster.Coordinator;
+import com.mamba.benchmark.common.dataset.CsvDataset;
+import com.mamba.benchmark.common.dataset.Cursor;
+import com.mamba.benchmark.common.executor.Arrival;
 import com.mamba.benchmark.common.executor.PressureExecutor;
+import com.mamba.benchmark.common.executor.impl.ThroughputExecutor;
+import com.mamba.benchmark.common.executor.impl.VirtualThreads;
+import com.mamba.benchmark.common.jfr.FlightEvents;
+import com.mamba.benchmark.common.metrics.MetricsServer;
 import com.mamba.benchmark.common.pressure.Custom;
 import com.mamba.benchmark.common.pressure.Fixed;
 import com.mamba.benchmark.common.pressure.Gradient;
 import com.mamba.benchmark.common.pressure.Pressure;
+import com.mamba.benchmark.common.pressure.Split;
+import com.mamba.benchmark.common.stat.CsvReporter;
+import com.mamba.benchmark.common.stat.Histogram;
+import com.mamba.benchmark.common.stat.Statistics;
 import com.mamba.benchmark.http.base.HttpRequest;
-import com.mamba.benchmark.http.client.NettyHttpClient;
+import com.mamba.benchmark.http.base.Scenario;
+import com.mamba.benchmark.http.client.ClientOptions;
+import com.mamba.benchmark.http.client.HttpClient;
+import com.mamba.benchmark.http.client.HttpClientEngine;
+import com.mamba.benchmark.http.client.RequestUri;
+import com.mamba.benchmark.http.define.Invocation;
+import com.mamba.benchmark.http.generator.CsvTaskGenerator;
 import com.mamba.benchmark.http.generator.InvariantTaskGenerator;
+import com.mamba.benchmark.http.generator.ReplayTaskGenerator;
+import com.mamba.benchmark.http.generator.ScenarioTaskGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.IntFunction;
 
@@ -24,15 +51,38 @@ public class Main {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
-    @Parameter(names = {"-req", "-request"}, description = "Request config path", required = true)
+    /**
+     * Arguments forwarded to agents, without the ones of the coordinator
+     */
+    private static final List<String> COORDINATOR_ARGS = Arrays.asList("-coordinator", "-agents", "-agent", "-report", "-metricsPort", "-jfr");
+
+    @Parameter(names = {"-req", "-request"}, description = "Request config path")
     private File request;
 
+    @Parameter(names = {"-scenario"}, description = "Scenario config path, a weighted mix of requests")
+    private File scenario;
+
+    @Parameter(names = {"-replay"}, description = "Request log path (jsonl, one request with timestamp per line), replayed at recorded times in throughput mode. Requests are buffered two seconds ahead whatever the quantity, a quantity of 0 pauses the replay")
+    private File replay;
+
+    @Parameter(names = {"-speed"}, description = "Speed multiplier of replay")
+    private double speed = 1;
+
     @Parameter(names = {"-t"}, description = "throughput")
     private boolean throughput;
 
     @Parameter(names = {"-c"}, description = "concurrency")
     private boolean concurrency;
 
+    @Parameter(names = {"-async"}, description = "Virtual users driven by completion callbacks in concurrency mode (thread per user by default)")
+    private boolean async;
+
+    @Parameter(names = {"-virtual"}, description = "Virtual thread per user in concurrency mode (JDK 21+, thread pool otherwise)")
+    private boolean virtual;
+
+    @Parameter(names = {"-poisson"}, description = "Poisson arrivals in throughput mode (evenly spaced by default)")
+    private boolean poisson;
+
     @Parameter(names = {"-quantity"})
     private Integer quantity;
 
@@ -57,42 +107,325 @@ public class Main {
     @Parameter(names = {"-quantities"})
     private List<String> quantities;
 
+    @Parameter(names = {"-data"}, description = "Csv dataset path, fills ${column} placeholders of url, headers and body")
+    private File data;
+
+    @Parameter(names = {"-cursor"}, description = "Order of reading dataset: sequential, random or partitioned")
+    private Cursor cursor = Cursor.SEQUENTIAL;
+
+    @Parameter(names = {"-partitions"}, description = "Partition count of dataset with partitioned cursor, reads rotate over the partitions")
+    private int partitions = 1;
+
+    @Parameter(names = {"-discard"}, description = "Discard response bodies as they arrive, keeping status, headers and size only")
+    private boolean discard;
+
+    @Parameter(names = {"-checksum"}, description = "Compute CRC32 of response bodies")
+    private boolean checksum;
+
+    @Parameter(names = {"-engine"}, description = "Client engine: ahc (HTTP/1.1), h1 (raw Netty HTTP/1.1 with pipelining), h2 (HTTP/2: h2c with prior knowledge for http urls, h2 negotiated by ALPN for https urls), or any other registered by ServiceLoader")
+    private String engine = "ahc";
+
+    @Parameter(names = {"-connections"}, description = "Connections per host, 0 for the engine default")
+    private int connections;
+
+    @Parameter(names = {"-maxConnections"}, description = "Max connections per host, above -connections (default 5) the ahc engine resizes its pool between both by the observed demand, 0 for a fixed pool")
+    private int maxConnections;
+
+    @Parameter(names = {"-streams"}, description = "Max concurrent streams per connection of multiplexing engines, 0 for the engine default")
+    private int streams;
+
+    @Parameter(names = {"-pipelining"}, description = "Max requests in flight per connection of pipelining engines, 0 for the engine default")
+    private int pipelining;
+
+    @Parameter(names = {"-connectTimeout"}, description = "Connect timeout (ms), 0 for the engine default")
+    private int connectTimeout;
+
+    @Parameter(names = {"-warmup"}, description = "Open and validate the connections of the client before the run")
+    private boolean warmup;
+
+    @Parameter(names = {"-insecure"}, description = "Trust any server certificate")
+    private boolean insecure;
+
+    @Parameter(names = {"-report"}, description = "Per-second report path (csv)")
+    private File report;
+
+    @Parameter(names = {"-metricsPort"}, description = "Serve metrics in Prometheus text format at http://host:port/metrics during the run, 0 for none")
+    private int metricsPort;
+
+    @Parameter(names = {"-jfr"}, description = "Record Flight Recorder events of task generation, dispatch, requests and pool resizes to this file (JDK 8u262+ or 11+)")
+    private File jfr;
+
+    @Parameter(names = {"-coordinator"}, description = "Coordinate a distributed run on this port: agents get the other arguments, an even share of the pressure, a shard of the replay log and a slice of the dataset, their statistics are merged here")
+    private Integer coordinator;
+
+    @Parameter(names = {"-agents"}, description = "Agent count of a distributed run")
+    private int agents = 1;
+
+    @Parameter(names = {"-agent"}, description = "Run as agent of the coordinator at host:port")
+    private String agent;
+
+    /**
+     * Connection to the coordinator, when running as agent
+     */
+    private Agent agentLink;
+
+    private Agent.Assignment assignment;
+
     public void run() throws Exception {
-        try (NettyHttpClient httpClient = NettyHttpClient.Builder.custom().build()) {
-            this.run(httpClient);
+        Statistics statistics = new Statistics();
+        try (HttpClient httpClient = this.newHttpClient(statistics);
+             CsvDataset dataset = this.data == null ? null : new CsvDataset(this.data, this.cursor, this.partitions, this.getShard(), this.getShards())) {
+            this.run(httpClient, dataset, statistics);
         }
+        summarize(statistics.snapshot());
+        if (this.agentLink != null) {
+            this.agentLink.finish();
+        }
+    }
+
+    /**
+     * Run as coordinator: no load of its own, merge the agents into the per-second report and the summary
+     */
+    private void coordinate(String... args) throws Exception {
+        this.getPressure();
+        List<String> forwarded = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (COORDINATOR_ARGS.contains(args[i])) {
+                i++;
+            } else {
+                forwarded.add(args[i]);
+            }
+        }
+        Statistics.Snapshot snapshot;
+        try (Coordinator coordinator = new Coordinator(this.coordinator, this.agents);
+             CsvReporter reporter = this.report == null ? null : new CsvReporter(this.report);
+             MetricsServer metrics = this.metricsPort > 0 ? new MetricsServer(this.metricsPort) : null) {
+            if (metrics != null) {
+                metrics.addStatistics(coordinator::snapshot);
+            }
+            coordinator.addListener((window, target) -> {
+                Histogram rt = window.getResponseTime();
+                LOGGER.info("Cluster Stat: target={}, requests={}, responses={}, inflight={}, errors={}, rt(ms): p50={}, p99={}, max={}",
+                        target, window.getRequests(), window.getResponses(), window.getInflight(), window.getErrorCount(),
+                        millis(rt.getValueAtPercentile(50)), millis(rt.getValueAtPercentile(99)), millis(rt.getMaxValue()));
+            });
+            if (reporter != null) {
+                coordinator.addListener(reporter::report);
+            }
+            LOGGER.info("Waiting for {} agents on port {}", this.agents, coordinator.getPort());
+            int timeout = (int) TimeUnit.MINUTES.toMillis(10);
+            coordinator.assign(forwarded, timeout);
+            coordinator.start(timeout);
+            snapshot = coordinator.await();
+        }
+        summarize(snapshot);
+    }
+
+    /**
+     * Run as agent: the arguments and the share of pressure come from the coordinator
+     */
+    private void serve() throws Exception {
+        HostAndPort address = HostAndPort.fromString(this.agent);
+        try (Agent agent = Agent.connect(address.getHost(), address.getPort(), TimeUnit.MINUTES.toMillis(10))) {
+            Agent.Assignment assignment = agent.awaitAssignment();
+            Main main = new Main();
+            JCommander.newBuilder().addObject(main).build().parse(assignment.getArgs().toArray(new String[0]));
+            main.agentLink = agent;
+            main.assignment = assignment;
+            main.run();
+        }
+    }
+
+    private static void summarize(Statistics.Snapshot snapshot) {
+        LOGGER.info("Requests: {}, responses: {}, successes: {}, failures: {} {}, errors: {} {}", snapshot.getRequests(), snapshot.getResponses(),
+                snapshot.getSuccesses(), snapshot.getFailureCount(), snapshot.getFailures(), snapshot.getErrorCount(), snapshot.getErrors());
+        report("Service time", snapshot.getServiceTime());
+        report("Response time", snapshot.getResponseTime());
+        LOGGER.info("Connections: opened={}, reused={}, closed={}, timeouts={}", snapshot.getConnectionsOpened(), snapshot.getConnectionsReused(),
+                snapshot.getConnectionsClosed(), snapshot.getConnectionTimeouts());
+        report("Pool wait", snapshot.getPoolWait());
+    }
+
+    private HttpClient newHttpClient(Statistics statistics) {
+        ClientOptions options = ClientOptions.Builder.custom().statistics(statistics).discardBody(this.discard).checksum(this.checksum)
+                .connections(this.connections).maxConnections(this.maxConnections).maxConcurrentStreams(this.streams).pipelining(this.pipelining).connectTimeout(this.connectTimeout).insecure(this.insecure).build();
+        return HttpClientEngine.load(this.engine).newClient(options);
     }
 
-    private void run(NettyHttpClient httpClient) throws Exception {
-        try (PressureExecutor executor = this.getExecutor(httpClient)) {
+    private void run(HttpClient httpClient, CsvDataset dataset, Statistics statistics) throws Exception {
+        if (this.concurrency == this.throughput) {
+            throw new IllegalArgumentException("Invalid argument: concurrency=" + this.concurrency + ", throughput=" + throughput);
+        }
+        IntFunction<List<Invocation>> generator = this.getGenerator(httpClient, dataset, statistics, this.throughput || this.async);
+        if (this.warmup) {
+            this.warmUp(httpClient);
+        }
+        long startTime = 0;
+        if (this.agentLink != null) {
+            this.agentLink.attach(statistics);
+            startTime = this.agentLink.ready();
+        }
+        Map<String, Statistics> endpoints = generator instanceof ScenarioTaskGenerator ? ((ScenarioTaskGenerator) generator).getEndpointStatistics() : Collections.emptyMap();
+        List<CsvReporter> endpointReporters = new ArrayList<>();
+        long beginTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        long endTime;
+        try (PressureExecutor<Invocation> executor = this.getExecutor(generator);
+             CsvReporter reporter = this.report == null ? null : new CsvReporter(statistics, this.report);
+             MetricsServer metrics = this.metricsPort > 0 ? new MetricsServer(this.metricsPort) : null) {
+            if (metrics != null) {
+                metrics.addStatistics(statistics::snapshot);
+                endpoints.forEach((name, endpoint) -> metrics.addStatistics(endpoint::snapshot, "endpoint", name));
+                metrics.addCollector(executor::collect);
+            }
+            if (reporter != null) {
+                executor.addListener(reporter);
+                for (Map.Entry<String, Statistics> endpoint : endpoints.entrySet()) {
+                    CsvReporter endpointReporter = new CsvReporter(endpoint.getValue(), endpointReport(this.report, endpoint.getKey()));
+                    endpointReporters.add(endpointReporter);
+                    executor.addListener(endpointReporter);
+                }
+            }
+            if (this.agentLink != null) {
+                executor.addListener(this.agentLink);
+                //所有agent同时启动
+                long delay = startTime - TimeUnit.SECONDS.toMillis(1) - System.currentTimeMillis();
+                if (delay > 0) {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                } else {
+                    LOGGER.warn("Agent is late for start by {} ms", -delay);
+                }
+                beginTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            }
             LOGGER.info("PressureExecutor will start in 1 second!");
             executor.start(1);
+            endTime = System.nanoTime();
             LOGGER.info("PressureExecutor will stop in 10 second!");
             TimeUnit.SECONDS.sleep(10);
+            if (executor instanceof ThroughputExecutor) {
+                report("Dispatch drift", ((ThroughputExecutor<Invocation>) executor).getDrift().snapshot());
+            }
+        } finally {
+            for (CsvReporter endpointReporter : endpointReporters) {
+                endpointReporter.close();
+            }
+            if (generator instanceof Closeable) {
+                ((Closeable) generator).close();
+            }
         }
+        double seconds = Math.max(endTime - beginTime, 1) / 1e9;
+        endpoints.forEach((name, endpoint) -> {
+            Statistics.Snapshot snapshot = endpoint.snapshot();
+            Histogram rt = snapshot.getResponseTime();
+            LOGGER.info("Endpoint {}: requests={}, responses={}, failures={}, errors={}, throughput={}/s, rt(ms): p50={}, p99={}, max={}",
+                    name, snapshot.getRequests(), snapshot.getResponses(), snapshot.getFailureCount(), snapshot.getErrorCount(), String.format("%.1f", snapshot.getSuccesses() / seconds),
+                    millis(rt.getValueAtPercentile(50)), millis(rt.getValueAtPercentile(99)), millis(rt.getMaxValue()));
+        });
     }
 
-    private PressureExecutor<Runnable> getExecutor(NettyHttpClient httpClient) throws Exception {
-        if (this.concurrency == this.throughput) {
-            throw new IllegalArgumentException("Invalid argument: concurrency=" + this.concurrency + ", throughput=" + throughput);
+    private void warmUp(HttpClient httpClient) throws Exception {
+        List<RequestUri> targets = this.getTargets();
+        if (targets.isEmpty()) {
+            LOGGER.warn("No fixed target to warm up");
+            return;
         }
-        boolean concurrency = this.concurrency;
+        long beginTime = System.nanoTime();
+        int ready = httpClient.warmUp(targets).get(1, TimeUnit.MINUTES);
+        LOGGER.info("Warmed up {} connections in {} ms", ready, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - beginTime));
+    }
+
+    /**
+     * Uris of the request or scenario, replayed logs have no fixed targets
+     */
+    private List<RequestUri> getTargets() throws Exception {
+        List<RequestUri> targets = new ArrayList<>();
+        if (this.scenario != null) {
+            for (Scenario.Endpoint endpoint : Scenario.parse(this.scenario).getEndpoints()) {
+                targets.add(endpoint.getRequest().getUri());
+            }
+        } else if (this.request != null && this.replay == null) {
+            targets.add(HttpRequest.parse(Files.asCharSource(this.request, Charsets.UTF_8).read()).getUri());
+        }
+        return targets;
+    }
+
+    /**
+     * Report path of endpoint, e.g. report-login.csv for report.csv
+     */
+    private static File endpointReport(File report, String endpoint) {
+        String name = report.getName();
+        int dot = name.lastIndexOf('.');
+        String fileName = dot > 0 ? name.substring(0, dot) + '-' + endpoint + name.substring(dot) : name + '-' + endpoint;
+        return new File(report.getAbsoluteFile().getParentFile(), fileName);
+    }
+
+    private static void report(String name, Histogram histogram) {
+        LOGGER.info("{}(ms): count={}, mean={}, p50={}, p90={}, p99={}, p99.9={}, max={}",
+                name, histogram.getTotalCount(), millis(histogram.getMean()),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static String millis(double nanos) {
+        return String.format("%.3f", nanos / 1000000);
+    }
+
+    private PressureExecutor<Invocation> getExecutor(IntFunction<List<Invocation>> generator) {
         Pressure pressure = this.getPressure();
-        IntFunction<List<Runnable>> generator = this.getGenerator(httpClient, !concurrency);
-        if (concurrency) {
+        if (this.concurrency) {
+            if (this.async) {
+                return PressureExecutor.virtualUsers(generator, pressure::currentQuantity);
+            }
+            if (this.virtual) {
+                if (VirtualThreads.isSupported()) {
+                    return PressureExecutor.virtualThreads(generator, pressure::currentQuantity);
+                }
+                LOGGER.warn("Virtual threads are not supported by Java {}, fall back to thread pool", System.getProperty("java.version"));
+            }
             return PressureExecutor.concurrency(generator, pressure::currentQuantity);
         } else {
-            return PressureExecutor.throughput(generator, pressure::currentQuantity);
+            return PressureExecutor.throughput(generator, pressure::currentQuantity, this.poisson ? Arrival.POISSON : Arrival.UNIFORM, true);
         }
     }
 
-    private IntFunction<List<Runnable>> getGenerator(NettyHttpClient httpClient, boolean async) throws Exception {
+    private IntFunction<List<Invocation>> getGenerator(HttpClient httpClient, CsvDataset dataset, Statistics statistics, boolean async) throws Exception {
+        if (this.replay != null) {
+            return ReplayTaskGenerator.newInstance(httpClient, this.replay, this.speed, async, this.getShard(), this.getShards());
+        }
+        if (this.scenario != null) {
+            return ScenarioTaskGenerator.newInstance(httpClient, Scenario.parse(this.scenario), statistics, async);
+        }
+        if (this.request == null) {
+            throw new IllegalArgumentException("Invalid argument: request, scenario or replay is required");
+        }
         String requestStr = Files.asCharSource(this.request, Charsets.UTF_8).read();
         HttpRequest request = HttpRequest.parse(requestStr);
+        if (dataset != null) {
+            return CsvTaskGenerator.newInstance(httpClient, request, dataset, async);
+        }
         return InvariantTaskGenerator.newInstance(httpClient, request, async);
     }
 
+    /**
+     * Index of agent, for its share of pressure, replay log and dataset
+     */
+    private int getShard() {
+        return this.assignment == null ? 0 : this.assignment.getIndex();
+    }
+
+    private int getShards() {
+        return this.assignment == null ? 1 : this.assignment.getCount();
+    }
+
     private Pressure getPressure() {
+        Pressure pressure = this.getTotalPressure();
+        if (this.getShards() > 1) {
+            return new Split(pressure, this.getShard(), this.getShards());
+        }
+        return pressure;
+    }
+
+    private Pressure getTotalPressure() {
         if (this.quantity != null && this.duration != null) {
             if (this.rampup == null) {
                 return new Fixed(this.quantity, this.duration);
@@ -114,6 +447,19 @@ public class Main {
         JCommander.newBuilder()
                 .addObject(main)
                 .build().parse(args);
-        main.run();
+        if (main.jfr != null) {
+            FlightEvents.start(main.jfr);
+        }
+        try {
+            if (main.coordinator != null) {
+                main.coordinate(args);
+            } else if (main.agent != null) {
+                main.serve();
+            } else {
+                main.run();
+            }
+        } finally {
+            FlightEvents.stop();
+        }
     }
 }
@@ -8,14 +8,12 @@ import com.mamba.benchmark.http.base.body.FileBody;
 import com.mamba.benchmark.http.base.body.HttpBody;
 import com.mamba.benchmark.http.base.body.MultipartBody;
 import com.mamba.benchmark.http.base.body.StringBody;
+import com.mamba.benchmark.http.client.ClientRequest;
+import com.mamba.benchmark.http.client.RequestUri;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
-import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.DefaultCookie;
-import org.asynchttpclient.Request;
-import org.asynchttpclient.RequestBuilder;
-import org.asynchttpclient.uri.Uri;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -26,7 +24,7 @@ public class HttpRequest {
 
     private final HttpMethod method;
 
-    private final Uri uri;
+    private final RequestUri uri;
 
     private final MediaType mediaType;
 
@@ -36,24 +34,42 @@ public class HttpRequest {
 
     private final List<Cookie> cookies;
 
+    /**
+     * Checks of response, nullable
+     */
+    private final ResponseAssertion assertion;
+
+    /**
+     * Compiled request, shared by all requests derived from this one
+     */
+    private final RequestPrototype prototype;
+
     private static final String TRACE_ID_SIGN = "ab";
 
+    private static final TraceIdGenerator TRACE_ID_GENERATOR = new TraceIdGenerator(TRACE_ID_SIGN);
+
     private static final String HEADER_TRACE_ID = "_RPC_TRACE_ID_";
 
-    public HttpRequest(HttpMethod method, Uri uri, MediaType mediaType, HttpBody body, HttpHeaders headers, List<Cookie> cookies) {
+    public HttpRequest(HttpMethod method, RequestUri uri, MediaType mediaType, HttpBody body, HttpHeaders headers, List<Cookie> cookies) {
+        this(method, uri, mediaType, body, headers, cookies, null);
+    }
+
+    public HttpRequest(HttpMethod method, RequestUri uri, MediaType mediaType, HttpBody body, HttpHeaders headers, List<Cookie> cookies, ResponseAssertion assertion) {
         this.method = method;
         this.uri = uri;
         this.mediaType = mediaType;
         this.body = body;
         this.headers = headers;
         this.cookies = cookies;
+        this.assertion = assertion;
+        this.prototype = new RequestPrototype(this);
     }
 
     public HttpMethod getMethod() {
         return method;
     }
 
-    public Uri getUri() {
+    public RequestUri getUri() {
         return uri;
     }
 
@@ -73,17 +89,23 @@ public class HttpRequest {
         return cookies;
     }
 
+    public ResponseAssertion getAssertion() {
+        return assertion;
+    }
+
     public static HttpRequest parse(String text) {
-        JSONObject json = JSONObject.parseObject(text);
-        RequestBuilder builder = new RequestBuilder(json.getString("method"));
-        builder.setUri(Uri.create(json.getString("url")));
+        return parse(JSONObject.parseObject(text));
+    }
+
+    public static HttpRequest parse(JSONObject json) {
         HttpMethod method = parseMethod(json.getString("method"));
-        Uri uri = parseUri(json.getString("url"));
+        RequestUri uri = parseUri(json.getString("url"));
         MediaType mediaType = parseContentType(json.getString("contentType"));
         HttpBody body = parseBody(mediaType, json, "body");
         HttpHeaders headers = parseHeaders(json.getJSONArray("headers"));
         List<Cookie> cookies = parseCookies(json.getJSONArray("cookies"));
-        return new HttpRequest(method, uri, mediaType, body, headers, cookies);
+        ResponseAssertion assertion = ResponseAssertion.parse(json.getJSONObject("assertions"));
+        return new HttpRequest(method, uri, mediaType, body, headers, cookies, assertion);
     }
 
     private static HttpMethod parseMethod(String method) {
@@ -93,11 +115,11 @@ public class HttpRequest {
         return HttpMethod.valueOf(method.toUpperCase());
     }
 
-    private static Uri parseUri(String url) {
+    private static RequestUri parseUri(String url) {
         if (url == null) {
             return null;
         }
-        return Uri.create(url);
+        return RequestUri.create(url);
     }
 
     private static MediaType parseContentType(String contentType) {
@@ -150,12 +172,12 @@ public class HttpRequest {
             if (file == null) {
                 throw new NullPointerException("Empty text & file of part");
             }
-            body.add(name, text, contentType);
+            body.add(name, new File(file), contentType);
         } else {
             if (file != null) {
                 throw new IllegalArgumentException("Illegal part, text & file both be set");
             }
-            body.add(name, new File(file), contentType);
+            body.add(name, text, contentType);
         }
     }
 
@@ -187,26 +209,24 @@ public class HttpRequest {
         return cookies;
     }
 
-    public Request toRequest() {
-        RequestBuilder builder = new RequestBuilder(this.getMethod().name());
-        builder.setUrl(this.getUri().toString());
-        HttpBody body = this.getBody();
-        if (body != null) {
-            if (body instanceof StringBody) {
-                builder.setBody(((StringBody) body).get());
-            } else if (body instanceof FileBody) {
-                builder.setBody(((FileBody) body).get());
-            } else if (body instanceof MultipartBody) {
-                builder.setBodyParts(((MultipartBody) body).get());
-            }
-        }
-        builder.setHeaders(this.getHeaders());
-        builder.setCookies(this.getCookies());
-        MediaType mediaType = this.getMediaType();
-        if (mediaType != null) {
-            builder.addHeader(HttpHeaderNames.CONTENT_TYPE, mediaType.toString());
+    public ClientRequest toRequest() {
+        return this.prototype.newRequest(HEADER_TRACE_ID, TRACE_ID_GENERATOR.next());
+    }
+
+    /**
+     * Request with per-request parts, for data-driven generators
+     *
+     * @param uri     uri, null for the configured one
+     * @param headers headers replacing the configured ones of the same name, nullable
+     * @param body    encoded body, null for the configured one
+     * @return
+     */
+    public ClientRequest toRequest(RequestUri uri, HttpHeaders headers, byte[] body) {
+        HttpHeaders merged = new DefaultHttpHeaders(false);
+        if (headers != null) {
+            merged.add(headers);
         }
-        builder.addHeader(HEADER_TRACE_ID, TraceIdGenerator.genTraceId(TRACE_ID_SIGN));
-        return builder.build();
+        merged.set(HEADER_TRACE_ID, TRACE_ID_GENERATOR.next());
+        return this.prototype.newRequest(uri, merged, body);
     }
 }
@@ -0,0 +1,169 @@
+package com.mamba.benchmark.http.base;
+
+import com.google.common.net.MediaType;
+import com.mamba.benchmark.http.base.body.FileBody;
+import com.mamba.benchmark.http.base.body.HttpBody;
+import com.mamba.benchmark.http.base.body.MultipartBody;
+import com.mamba.benchmark.http.base.body.StringBody;
+import com.mamba.benchmark.http.client.ClientRequest;
+import com.mamba.benchmark.http.client.RequestUri;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.cookie.ClientCookieEncoder;
+import io.netty.util.AsciiString;
+import org.asynchttpclient.request.body.Body;
+import org.asynchttpclient.request.body.multipart.MultipartUtils;
+import org.asynchttpclient.request.body.multipart.Part;
+import org.asynchttpclient.util.HttpUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable request compiled once per {@link HttpRequest}: resolved uri, encoded headers and cookies, encoded body.
+ * Requests are derived from it by adding the per-request headers only
+ */
+public class RequestPrototype {
+
+    private static final MediaType MULTIPART_FORM_DATA = MediaType.create("multipart", "form-data");
+
+    private final String method;
+
+    private final RequestUri uri;
+
+    /**
+     * Headers shared by all derived requests
+     */
+    private final HttpHeaders headers;
+
+    /**
+     * Read-only encoded body, shared by all derived requests, null if none
+     */
+    private final ByteBuffer body;
+
+    /**
+     * Request of the shared parts, base of derived requests
+     */
+    private final ClientRequest base;
+
+    public RequestPrototype(HttpRequest request) {
+        this.method = request.getMethod().name();
+        this.uri = request.getUri();
+        MediaType mediaType = request.getMediaType();
+        HttpBody body = request.getBody();
+        if (body instanceof MultipartBody) {
+            //固定分隔符，整体只编码一次
+            String boundary = new String(HttpUtils.computeMultipartBoundary(), StandardCharsets.US_ASCII);
+            mediaType = (mediaType == null ? MULTIPART_FORM_DATA : mediaType).withParameter("boundary", boundary);
+        }
+        if (body instanceof StringBody) {
+            Charset charset = mediaType == null ? StandardCharsets.UTF_8 : mediaType.charset().or(StandardCharsets.UTF_8);
+            this.body = ByteBuffer.wrap(((StringBody) body).get().getBytes(charset)).asReadOnlyBuffer();
+        } else if (body instanceof FileBody) {
+            //内存映射的文件内容，各请求共享，避免每次读盘
+            this.body = ((FileBody) body).getBuffer();
+        } else if (body instanceof MultipartBody) {
+            this.body = encodeMultipart(((MultipartBody) body).get(), mediaType);
+        } else {
+            this.body = null;
+        }
+        this.headers = encodeHeaders(request, mediaType);
+        this.base = new ClientRequest(this.method, this.uri, this.headers, this.body);
+    }
+
+    /**
+     * Encode multipart body into a read-only direct buffer
+     *
+     * @param parts
+     * @param mediaType media type with boundary
+     * @return
+     */
+    private static ByteBuffer encodeMultipart(List<Part> parts, MediaType mediaType) {
+        HttpHeaders headers = new DefaultHttpHeaders(false).add(HttpHeaderNames.CONTENT_TYPE, mediaType.toString());
+        org.asynchttpclient.request.body.multipart.MultipartBody multipart = MultipartUtils.newMultipartBody(parts, headers);
+        ByteBuf buf = Unpooled.buffer((int) multipart.getContentLength());
+        try {
+            while (multipart.transferTo(buf) != Body.BodyState.STOP) {
+                buf.ensureWritable(8192);
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(buf.readableBytes());
+            buf.readBytes(buffer);
+            buffer.flip();
+            return buffer.asReadOnlyBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Encode multipart error", e);
+        } finally {
+            buf.release();
+            multipart.close();
+        }
+    }
+
+    private static HttpHeaders encodeHeaders(HttpRequest request, MediaType mediaType) {
+        HttpHeaders headers = new DefaultHttpHeaders(false);
+        for (Iterator<Map.Entry<CharSequence, CharSequence>> it = request.getHeaders().iteratorCharSequence(); it.hasNext(); ) {
+            Map.Entry<CharSequence, CharSequence> header = it.next();
+            headers.add(AsciiString.of(header.getKey()), AsciiString.of(header.getValue()));
+        }
+        if (request.getCookies() != null && !request.getCookies().isEmpty()) {
+            headers.add(HttpHeaderNames.COOKIE, AsciiString.of(ClientCookieEncoder.STRICT.encode(request.getCookies())));
+        }
+        if (mediaType != null) {
+            headers.add(HttpHeaderNames.CONTENT_TYPE, AsciiString.of(mediaType.toString()));
+        }
+        return headers;
+    }
+
+    /**
+     * Derive request with one per-request header
+     *
+     * @param name  header name
+     * @param value header value
+     * @return
+     */
+    public ClientRequest newRequest(CharSequence name, Object value) {
+        return this.base.derive(new DefaultHttpHeaders(false).add(name, value));
+    }
+
+    /**
+     * Derive request with per-request uri, headers and body
+     *
+     * @param uri     uri, null for the prototype one
+     * @param headers headers to set, replacing the shared ones of the same name
+     * @param body    body, null for the prototype one
+     * @return
+     */
+    public ClientRequest newRequest(RequestUri uri, HttpHeaders headers, byte[] body) {
+        if (uri == null && body == null && (headers == null || this.isExtra(headers))) {
+            return this.base.derive(headers == null ? new DefaultHttpHeaders(false) : headers);
+        }
+        HttpHeaders merged = new DefaultHttpHeaders(false).add(this.headers);
+        if (headers != null) {
+            for (Iterator<Map.Entry<CharSequence, CharSequence>> it = headers.iteratorCharSequence(); it.hasNext(); ) {
+                Map.Entry<CharSequence, CharSequence> header = it.next();
+                merged.set(header.getKey(), header.getValue());
+            }
+        }
+        return new ClientRequest(this.method, uri == null ? this.uri : uri, merged, body == null ? this.body : ByteBuffer.wrap(body).asReadOnlyBuffer());
+    }
+
+    /**
+     * Whether none of the headers replaces a shared one
+     */
+    private boolean isExtra(HttpHeaders headers) {
+        for (Iterator<Map.Entry<CharSequence, CharSequence>> it = headers.iteratorCharSequence(); it.hasNext(); ) {
+            if (this.headers.contains(it.next().getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
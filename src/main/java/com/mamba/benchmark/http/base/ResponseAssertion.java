@@ -0,0 +1,315 @@
+package com.mamba.benchmark.http.base;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.JSONPath;
+import com.google.common.net.MediaType;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Declarative checks of response, evaluated on the streaming body parts without building the full body, e.g.
+ * {"status": [200, 201], "headers": {"Content-Type": "application/json", "X-Trace": null}, "contains": "\"code\":0",
+ * "regex": "id=\\d+", "jsonPath": {"path": "$.code", "value": 0}, "maxBodySize": 65536}.
+ * Regex and json path see at most the first 1 MiB of body: a regex is searched in that prefix, a json path of a larger
+ * body cannot be checked, and either one unmet on a larger body fails as {@link #TOO_LARGE} rather than as a mismatch
+ */
+public class ResponseAssertion {
+
+    /**
+     * Failure categories
+     */
+    public static final String STATUS = "status";
+
+    public static final String HEADER = "header";
+
+    public static final String CONTAINS = "contains";
+
+    public static final String REGEX = "regex";
+
+    public static final String JSON_PATH = "jsonPath";
+
+    public static final String BODY_SIZE = "bodySize";
+
+    /**
+     * Body above the capture of regex and json path, not fully checked
+     */
+    public static final String TOO_LARGE = "tooLarge";
+
+    /**
+     * Max bytes of body kept for regex and json path, larger bodies keep their prefix
+     */
+    private static final int MAX_CAPTURE = 1 << 20;
+
+    /**
+     * Expected statuses (sorted), null for any
+     */
+    private final int[] statuses;
+
+    /**
+     * Required headers, null value for any value
+     */
+    private final Map<String, String> headers;
+
+    /**
+     * Required substring (UTF-8) and its KMP failure table
+     */
+    private final byte[] contains;
+
+    private final int[] failure;
+
+    private final Pattern regex;
+
+    private final String jsonPath;
+
+    /**
+     * Expected value at json path, null if the path only has to exist
+     */
+    private final Object jsonValue;
+
+    /**
+     * Max bytes of body, -1 for unlimited
+     */
+    private final long maxBodySize;
+
+    /**
+     * Bytes of body kept for regex and json path, 0 if not needed
+     */
+    private final int captureLimit;
+
+    public ResponseAssertion(int[] statuses, Map<String, String> headers, String contains, String regex, String jsonPath, Object jsonValue, long maxBodySize) {
+        this.statuses = statuses == null ? null : sorted(statuses);
+        this.headers = headers == null ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        this.contains = contains == null || contains.isEmpty() ? null : contains.getBytes(StandardCharsets.UTF_8);
+        this.failure = this.contains == null ? null : failureTable(this.contains);
+        this.regex = regex == null ? null : Pattern.compile(regex);
+        this.jsonPath = jsonPath;
+        this.jsonValue = jsonValue;
+        this.maxBodySize = maxBodySize;
+        if (this.regex == null && this.jsonPath == null) {
+            this.captureLimit = 0;
+        } else {
+            this.captureLimit = maxBodySize >= 0 ? (int) Math.min(maxBodySize, MAX_CAPTURE) : MAX_CAPTURE;
+        }
+    }
+
+    private static int[] sorted(int[] values) {
+        int[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    private static int[] failureTable(byte[] pattern) {
+        int[] table = new int[pattern.length];
+        for (int i = 1, k = 0; i < pattern.length; i++) {
+            while (k > 0 && pattern[i] != pattern[k]) {
+                k = table[k - 1];
+            }
+            if (pattern[i] == pattern[k]) {
+                k++;
+            }
+            table[i] = k;
+        }
+        return table;
+    }
+
+    public static ResponseAssertion parse(JSONObject json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        int[] statuses = null;
+        Object status = json.get("status");
+        if (status instanceof JSONArray) {
+            statuses = ((JSONArray) status).toJavaObject(int[].class);
+        } else if (status != null) {
+            statuses = new int[]{json.getIntValue("status")};
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        JSONObject headerObj = json.getJSONObject("headers");
+        if (headerObj != null) {
+            headerObj.forEach((name, value) -> headers.put(name, value == null ? null : value.toString()));
+        }
+        String jsonPath = null;
+        Object jsonValue = null;
+        Object path = json.get("jsonPath");
+        if (path instanceof JSONObject) {
+            jsonPath = ((JSONObject) path).getString("path");
+            jsonValue = ((JSONObject) path).get("value");
+        } else if (path != null) {
+            jsonPath = path.toString();
+        }
+        Long maxBodySize = json.getLong("maxBodySize");
+        return new ResponseAssertion(statuses, headers, json.getString("contains"), json.getString("regex"), jsonPath, jsonValue, maxBodySize == null ? -1 : maxBodySize);
+    }
+
+    /**
+     * State of one response, not thread-safe (callbacks of a response are serial)
+     *
+     * @return
+     */
+    public State newState() {
+        return new State();
+    }
+
+    public class State {
+
+        /**
+         * Category of the first failure
+         */
+        private String failed;
+
+        private long bodyLength;
+
+        /**
+         * Matched length of the substring, equals its length once found
+         */
+        private int matched;
+
+        private byte[] captured;
+
+        private int capturedLength;
+
+        private boolean overflow;
+
+        private Charset charset = StandardCharsets.UTF_8;
+
+        private State() {
+            if (captureLimit > 0) {
+                this.captured = new byte[Math.min(captureLimit, 1024)];
+            }
+        }
+
+        private void fail(String category) {
+            if (this.failed == null) {
+                this.failed = category;
+            }
+        }
+
+        public void onStatus(int status) {
+            if (statuses != null && Arrays.binarySearch(statuses, status) < 0) {
+                this.fail(STATUS);
+            }
+        }
+
+        public void onHeaders(HttpHeaders headers) {
+            for (Map.Entry<String, String> header : ResponseAssertion.this.headers.entrySet()) {
+                String value = headers.get(header.getKey());
+                if (value == null || (header.getValue() != null && !header.getValue().equals(value))) {
+                    this.fail(HEADER);
+                }
+            }
+            String contentType = headers.get(HttpHeaderNames.CONTENT_TYPE);
+            if (captureLimit > 0 && contentType != null) {
+                try {
+                    this.charset = MediaType.parse(contentType).charset().or(StandardCharsets.UTF_8);
+                } catch (Exception e) {
+                }
+            }
+        }
+
+        public void onBodyPart(ByteBuffer content) {
+            if (this.failed != null) {
+                return;
+            }
+            int length = content.remaining();
+            this.bodyLength += length;
+            if (maxBodySize >= 0 && this.bodyLength > maxBodySize) {
+                this.fail(BODY_SIZE);
+                return;
+            }
+            if (contains != null && this.matched < contains.length) {
+                this.match(content);
+            }
+            if (this.captured != null && !this.overflow) {
+                this.capture(content);
+            }
+        }
+
+        /**
+         * Streaming KMP, the matched length carries over part boundaries
+         */
+        private void match(ByteBuffer content) {
+            int k = this.matched;
+            for (int i = content.position(), limit = content.limit(); i < limit; i++) {
+                byte b = content.get(i);
+                while (k > 0 && b != contains[k]) {
+                    k = failure[k - 1];
+                }
+                if (b == contains[k]) {
+                    k++;
+                    if (k == contains.length) {
+                        break;
+                    }
+                }
+            }
+            this.matched = k;
+        }
+
+        private void capture(ByteBuffer content) {
+            int length = content.remaining();
+            if (this.capturedLength + length > captureLimit) {
+                this.overflow = true;
+                length = captureLimit - this.capturedLength;
+            }
+            if (this.capturedLength + length > this.captured.length) {
+                this.captured = Arrays.copyOf(this.captured, Math.min(captureLimit, Math.max(this.captured.length * 2, this.capturedLength + length)));
+            }
+            ByteBuffer part = content.duplicate();
+            part.limit(part.position() + length);
+            part.get(this.captured, this.capturedLength, length);
+            this.capturedLength += length;
+        }
+
+        /**
+         * Evaluate the remaining checks at the end of body
+         *
+         * @return category of failure, null if passed
+         */
+        public String finish() {
+            if (this.failed != null) {
+                return this.failed;
+            }
+            if (contains != null && this.matched < contains.length) {
+                return CONTAINS;
+            }
+            if (captureLimit == 0) {
+                return null;
+            }
+            String body = new String(this.captured, 0, this.capturedLength, this.charset);
+            if (regex != null && !regex.matcher(body).find()) {
+                //前缀中未找到, 不能断定整个body不匹配
+                return this.overflow ? TOO_LARGE : REGEX;
+            }
+            if (jsonPath != null && this.overflow) {
+                return TOO_LARGE;
+            }
+            if (jsonPath != null && !this.matchJsonPath(body)) {
+                return JSON_PATH;
+            }
+            return null;
+        }
+
+        private boolean matchJsonPath(String body) {
+            Object value;
+            try {
+                value = JSONPath.eval(JSON.parse(body), jsonPath);
+            } catch (Exception e) {
+                return false;
+            }
+            if (value == null) {
+                return false;
+            }
+            return jsonValue == null || String.valueOf(jsonValue).equals(String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.mamba.benchmark.http.base;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Weighted mix of requests, e.g. {"endpoints": [{"name": "get", "weight": 3, "request": {...}}, {"name": "post", "weight": 1, "request": "request_post.json"}]},
+ * request is either inline or a path relative to the scenario file
+ */
+public class Scenario {
+
+    private final List<Endpoint> endpoints;
+
+    public Scenario(List<Endpoint> endpoints) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            throw new IllegalArgumentException("Empty endpoints");
+        }
+        Set<String> names = new HashSet<>();
+        for (Endpoint endpoint : endpoints) {
+            if (!names.add(endpoint.getName())) {
+                throw new IllegalArgumentException("Duplicate endpoint: " + endpoint.getName());
+            }
+        }
+        this.endpoints = Collections.unmodifiableList(endpoints);
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public static Scenario parse(File file) throws IOException {
+        JSONObject json = JSONObject.parseObject(Files.asCharSource(file, Charsets.UTF_8).read());
+        JSONArray endpointArr = json.getJSONArray("endpoints");
+        if (endpointArr == null || endpointArr.isEmpty()) {
+            throw new IllegalArgumentException("Empty endpoints");
+        }
+        List<Endpoint> endpoints = new ArrayList<>(endpointArr.size());
+        for (int i = 0; i < endpointArr.size(); i++) {
+            endpoints.add(parseEndpoint(endpointArr.getJSONObject(i), file.getAbsoluteFile().getParentFile()));
+        }
+        return new Scenario(endpoints);
+    }
+
+    private static Endpoint parseEndpoint(JSONObject json, File baseDir) throws IOException {
+        String name = json.getString("name");
+        if (name == null || name.isEmpty()) {
+            throw new NullPointerException("Empty name of endpoint");
+        }
+        Double weight = json.getDouble("weight");
+        Object request = json.get("request");
+        if (request == null) {
+            throw new NullPointerException("Empty request of endpoint: " + name);
+        }
+        if (request instanceof JSONObject) {
+            return new Endpoint(name, weight == null ? 1 : weight, HttpRequest.parse((JSONObject) request));
+        }
+        File file = new File(request.toString());
+        if (!file.isAbsolute()) {
+            file = new File(baseDir, request.toString());
+        }
+        return new Endpoint(name, weight == null ? 1 : weight, HttpRequest.parse(Files.asCharSource(file, Charsets.UTF_8).read()));
+    }
+
+    public static class Endpoint {
+
+        private final String name;
+
+        private final double weight;
+
+        private final HttpRequest request;
+
+        public Endpoint(String name, double weight, HttpRequest request) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("Invalid weight of endpoint " + name + ": " + weight);
+            }
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public HttpRequest getRequest() {
+            return request;
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package com.mamba.benchmark.http.base.body;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Objects;
 
 public class FileBody implements HttpBody<File> {
 
     private final File file;
 
+    /**
+     * Content mapped and loaded once, shared by all requests
+     */
+    private volatile ByteBuffer buffer;
+
     public FileBody(File file) {
         this.file = Objects.requireNonNull(file);
     }
@@ -15,4 +26,35 @@ public class FileBody implements HttpBody<File> {
     public File get() {
         return this.file;
     }
+
+    /**
+     * Read-only content of file, callers should {@link ByteBuffer#duplicate()} it before changing position
+     *
+     * @return memory-mapped content
+     */
+    public ByteBuffer getBuffer() {
+        if (this.buffer == null) {
+            synchronized (this) {
+                if (this.buffer == null) {
+                    this.buffer = map(this.file);
+                }
+            }
+        }
+        return this.buffer;
+    }
+
+    static ByteBuffer map(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File too large: " + file + ", size: " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            //预先加载到内存，避免压测期间缺页读盘
+            buffer.load();
+            return buffer.asReadOnlyBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Map file error: " + file, e);
+        }
+    }
 }
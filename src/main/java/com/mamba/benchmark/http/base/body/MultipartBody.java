@@ -30,9 +30,17 @@ public class MultipartBody implements HttpBody<List<Part>> {
     }
 
     public void add(String name, File file) {
-        this.parts.add(new FilePart(name, file));
+        this.add(name, file, null);
     }
 
+    /**
+     * Add file part, only the file is referenced: its content is read when the request prototype encodes the whole
+     * body into one shared buffer, so no copy of it is kept on the heap
+     *
+     * @param name
+     * @param file
+     * @param contentType nullable, guessed from the file name
+     */
     public void add(String name, File file, String contentType) {
         this.parts.add(new FilePart(name, file, contentType));
     }
@@ -0,0 +1,240 @@
+package com.mamba.benchmark.http.client;
+
+import com.mamba.benchmark.common.executor.impl.CustomThreadFactory;
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.exception.TooManyConnectionsPerHostException;
+import org.asynchttpclient.netty.channel.ConnectionSemaphore;
+import org.asynchttpclient.netty.channel.ConnectionSemaphoreFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-host connection limit of {@link NettyHttpClient}, resized within bounds by the observed demand.
+ * The limit doubles as soon as a request finds no free connection, and shrinks halfway to the peak of in-flight
+ * requests once it stayed below the limit for a few periods, idle connections above the limit are then closed by
+ * the pooled connection idle timeout
+ */
+public class AdaptiveConnectionPool implements ConnectionSemaphoreFactory, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConnectionPool.class);
+
+    /**
+     * Resize period, in milliseconds
+     */
+    private static final long PERIOD = 1000;
+
+    /**
+     * Periods the peak demand has to stay below the limit before shrinking
+     */
+    static final int SHRINK_PERIODS = 5;
+
+    private final int minConnectionsPerHost;
+
+    private final int maxConnectionsPerHost;
+
+    private final ConcurrentMap<Object, Host> hosts = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public AdaptiveConnectionPool(int minConnectionsPerHost, int maxConnectionsPerHost) {
+        if (minConnectionsPerHost < 1 || maxConnectionsPerHost < minConnectionsPerHost) {
+            throw new IllegalArgumentException("Illegal connections per host: min=" + minConnectionsPerHost + ", max=" + maxConnectionsPerHost);
+        }
+        this.minConnectionsPerHost = minConnectionsPerHost;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getMinConnectionsPerHost() {
+        return minConnectionsPerHost;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Start resizing periodically
+     */
+    public synchronized void start() {
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("pool"));
+            this.scheduler.scheduleAtFixedRate(this::resize, PERIOD, PERIOD, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public ConnectionSemaphore newConnectionSemaphore(AsyncHttpClientConfig config) {
+        int acquireTimeout = Math.max(0, config.getAcquireFreeChannelTimeout());
+        return new ConnectionSemaphore() {
+            @Override
+            public void acquireChannelLock(Object partitionKey) throws IOException {
+                acquire(getHost(partitionKey), acquireTimeout);
+            }
+
+            @Override
+            public void releaseChannelLock(Object partitionKey) {
+                getHost(partitionKey).permits.release();
+            }
+        };
+    }
+
+    /**
+     * Demand of host
+     *
+     * @param partitionKey channel pool partition key of AsyncHttpClient
+     * @return
+     */
+    public Host getHost(Object partitionKey) {
+        Host host = this.hosts.get(partitionKey);
+        return host != null ? host : this.hosts.computeIfAbsent(partitionKey, k -> new Host(k, this.minConnectionsPerHost));
+    }
+
+    void acquire(Host host, int acquireTimeout) throws IOException {
+        if (host.permits.tryAcquire()) {
+            return;
+        }
+        host.misses.increment();
+        //连接不足时立即扩容，不等下个周期
+        if (this.grow(host) && host.permits.tryAcquire()) {
+            return;
+        }
+        if (acquireTimeout > 0) {
+            try {
+                if (host.permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        throw new TooManyConnectionsPerHostException(host.getLimit());
+    }
+
+    private boolean grow(Host host) {
+        synchronized (host) {
+            if (host.limit >= this.maxConnectionsPerHost) {
+                return false;
+            }
+            int limit = Math.min(this.maxConnectionsPerHost, Math.max(host.limit * 2, host.inflight.get()));
+            LOGGER.info("Connections of {} grown: {} -> {}", host.key, host.limit, limit);
+            host.resize(limit);
+            return true;
+        }
+    }
+
+    /**
+     * Fit the limit of each host to the peak of in-flight requests since last period, with a quarter of headroom
+     */
+    void resize() {
+        for (Host host : this.hosts.values()) {
+            int peak = host.peak.getAndSet(host.inflight.get());
+            long misses = host.misses.sumThenReset();
+            int target = Math.max(this.minConnectionsPerHost, Math.min(this.maxConnectionsPerHost, peak + (peak + 3) / 4));
+            synchronized (host) {
+                if (target > host.limit) {
+                    LOGGER.info("Connections of {} grown: {} -> {}, peak in-flight {}", host.key, host.limit, target, peak);
+                    host.resize(target);
+                    host.quietPeriods = 0;
+                } else if (target == host.limit || misses > 0) {
+                    host.quietPeriods = 0;
+                } else if (++host.quietPeriods >= SHRINK_PERIODS) {
+                    int limit = target + (host.limit - target) / 2;
+                    LOGGER.info("Connections of {} shrunk: {} -> {}, peak in-flight {}", host.key, host.limit, limit, peak);
+                    host.resize(limit);
+                    host.quietPeriods = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Connection limit and demand of a host
+     */
+    public static final class Host {
+
+        private final Object key;
+
+        private final ResizableSemaphore permits;
+
+        private final AtomicInteger inflight = new AtomicInteger();
+
+        /**
+         * Peak of in-flight requests since last period
+         */
+        private final AtomicInteger peak = new AtomicInteger();
+
+        /**
+         * Connections asked for beyond the limit since last period
+         */
+        private final LongAdder misses = new LongAdder();
+
+        private int limit;
+
+        private int quietPeriods;
+
+        private Host(Object key, int limit) {
+            this.key = key;
+            this.permits = new ResizableSemaphore(limit);
+            this.limit = limit;
+        }
+
+        public void onRequest() {
+            int inflight = this.inflight.incrementAndGet();
+            if (inflight > this.peak.get()) {
+                this.peak.accumulateAndGet(inflight, Math::max);
+            }
+        }
+
+        public void onResponse() {
+            this.inflight.decrementAndGet();
+        }
+
+        public synchronized int getLimit() {
+            return limit;
+        }
+
+        /**
+         * Connections over the new limit are not taken back, their permits are dropped as they close
+         */
+        private void resize(int limit) {
+            if (limit > this.limit) {
+                this.permits.release(limit - this.limit);
+            } else if (limit < this.limit) {
+                this.permits.reducePermits(this.limit - limit);
+            }
+            this.limit = limit;
+        }
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        private ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
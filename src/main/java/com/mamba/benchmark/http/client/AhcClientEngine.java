@@ -0,0 +1,35 @@
+package com.mamba.benchmark.http.client;
+
+/**
+ * HTTP/1.1 engine based on AsyncHttpClient, see {@link NettyHttpClient}
+ */
+public class AhcClientEngine implements HttpClientEngine {
+
+    @Override
+    public String getName() {
+        return "ahc";
+    }
+
+    @Override
+    public HttpClient newClient(ClientOptions options) {
+        NettyHttpClient.Builder builder = NettyHttpClient.Builder.custom()
+                .statistics(options.getStatistics())
+                .discardBody(options.isDiscardBody())
+                .checksum(options.isChecksum())
+                .insecure(options.isInsecure());
+        int minConnections = options.getConnections() > 0 ? options.getConnections() : NettyHttpClient.Builder.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+        if (options.getMaxConnections() > minConnections) {
+            //空闲连接尽早关闭，缩容才能生效
+            builder.adaptiveConnectionsPerHost(minConnections, options.getMaxConnections()).pooledConnectionIdleTimeout(10000);
+        } else if (options.getConnections() > 0) {
+            builder.maxConnectionsPerHost(options.getConnections()).maxConnections(Math.max(50, options.getConnections()));
+        }
+        if (options.getTimeout() > 0) {
+            builder.timeout(options.getTimeout());
+        }
+        if (options.getConnectTimeout() > 0) {
+            builder.connectTimeout(options.getConnectTimeout());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,197 @@
+package com.mamba.benchmark.http.client;
+
+import com.mamba.benchmark.common.stat.Statistics;
+
+/**
+ * Engine-neutral client options, engines ignore the ones they do not support, 0 stands for the engine default
+ */
+public class ClientOptions {
+
+    private final Statistics statistics;
+
+    private final boolean discardBody;
+
+    private final boolean checksum;
+
+    private final int connections;
+
+    private final int maxConnections;
+
+    private final int maxConcurrentStreams;
+
+    private final int pipelining;
+
+    private final int timeout;
+
+    private final int connectTimeout;
+
+    private final boolean insecure;
+
+    private ClientOptions(Builder builder) {
+        this.statistics = builder.statistics;
+        this.discardBody = builder.discardBody;
+        this.checksum = builder.checksum;
+        this.connections = builder.connections;
+        this.maxConnections = builder.maxConnections;
+        this.maxConcurrentStreams = builder.maxConcurrentStreams;
+        this.pipelining = builder.pipelining;
+        this.timeout = builder.timeout;
+        this.connectTimeout = builder.connectTimeout;
+        this.insecure = builder.insecure;
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    public boolean isDiscardBody() {
+        return discardBody;
+    }
+
+    public boolean isChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Connections per host
+     *
+     * @return 0 for the engine default
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * Upper bound of connections per host, above {@link #getConnections()} the engines supporting it resize the pool
+     * between both by the observed demand
+     *
+     * @return 0 for a fixed pool
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Max concurrent streams per connection, multiplexing engines only
+     *
+     * @return 0 for the engine default
+     */
+    public int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    /**
+     * Max requests in flight per HTTP/1.1 connection, pipelining engines only
+     *
+     * @return 0 for the engine default
+     */
+    public int getPipelining() {
+        return pipelining;
+    }
+
+    /**
+     * Request timeout in milliseconds
+     *
+     * @return 0 for the engine default
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Connect timeout in milliseconds
+     *
+     * @return 0 for the engine default
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public boolean isInsecure() {
+        return insecure;
+    }
+
+    public static class Builder {
+
+        private Statistics statistics;
+
+        private boolean discardBody;
+
+        private boolean checksum;
+
+        private int connections;
+
+        private int maxConnections;
+
+        private int maxConcurrentStreams;
+
+        private int pipelining;
+
+        private int timeout;
+
+        private int connectTimeout;
+
+        private boolean insecure;
+
+        private Builder() {
+        }
+
+        public static ClientOptions.Builder custom() {
+            return new ClientOptions.Builder();
+        }
+
+        public ClientOptions.Builder statistics(Statistics statistics) {
+            this.statistics = statistics;
+            return this;
+        }
+
+        public ClientOptions.Builder discardBody(boolean discardBody) {
+            this.discardBody = discardBody;
+            return this;
+        }
+
+        public ClientOptions.Builder checksum(boolean checksum) {
+            this.checksum = checksum;
+            return this;
+        }
+
+        public ClientOptions.Builder connections(int connections) {
+            this.connections = connections;
+            return this;
+        }
+
+        public ClientOptions.Builder maxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        public ClientOptions.Builder maxConcurrentStreams(int maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            return this;
+        }
+
+        public ClientOptions.Builder pipelining(int pipelining) {
+            this.pipelining = pipelining;
+            return this;
+        }
+
+        public ClientOptions.Builder timeout(int timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public ClientOptions.Builder connectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public ClientOptions.Builder insecure(boolean insecure) {
+            this.insecure = insecure;
+            return this;
+        }
+
+        public ClientOptions build() {
+            return new ClientOptions(this);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.mamba.benchmark.http.client;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Engine-neutral request template: method, uri, encoded headers and body, shared by all client engines. A request may
+ * derive from a base request by adding headers, so that engines can reuse what they encoded for the base
+ */
+public class ClientRequest {
+
+    private final String method;
+
+    private final RequestUri uri;
+
+    private final HttpHeaders headers;
+
+    /**
+     * Read-only body, null if none
+     */
+    private final ByteBuffer body;
+
+    /**
+     * Request this one derives from, null if none
+     */
+    private final ClientRequest base;
+
+    /**
+     * Headers added to the ones of base, null if no base
+     */
+    private final HttpHeaders extraHeaders;
+
+    public ClientRequest(String method, RequestUri uri, HttpHeaders headers, ByteBuffer body) {
+        this(method, uri, headers, body, null, null);
+    }
+
+    private ClientRequest(String method, RequestUri uri, HttpHeaders headers, ByteBuffer body, ClientRequest base, HttpHeaders extraHeaders) {
+        this.method = method;
+        this.uri = uri;
+        this.headers = headers;
+        this.body = body;
+        this.base = base;
+        this.extraHeaders = extraHeaders;
+    }
+
+    /**
+     * Request with the same method, uri and body, and the headers added to the ones of this request
+     *
+     * @param extraHeaders headers whose names are not in this request
+     * @return
+     */
+    public ClientRequest derive(HttpHeaders extraHeaders) {
+        HttpHeaders headers = new DefaultHttpHeaders(false).add(this.headers).add(extraHeaders);
+        return new ClientRequest(this.method, this.uri, headers, this.body, this, extraHeaders);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public RequestUri getUri() {
+        return uri;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return null if not derived
+     */
+    public ClientRequest getBase() {
+        return base;
+    }
+
+    /**
+     * @return headers added to the ones of base, null if not derived
+     */
+    public HttpHeaders getExtraHeaders() {
+        return extraHeaders;
+    }
+
+    /**
+     * Body with its own position and limit, content is shared
+     *
+     * @return null if none
+     */
+    public ByteBuffer getBody() {
+        return body == null ? null : body.duplicate();
+    }
+
+    /**
+     * Bytes of body
+     *
+     * @return
+     */
+    public int getContentLength() {
+        return body == null ? 0 : body.remaining();
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + uri;
+    }
+}
@@ -0,0 +1,189 @@
+package com.mamba.benchmark.http.client;
+
+import com.mamba.benchmark.common.jfr.FlightEvents;
+import com.mamba.benchmark.common.stat.Statistics;
+import com.mamba.benchmark.http.base.ResponseAssertion;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+/**
+ * One request and its response as seen by the benchmark. Engines report progress through the hooks, timing, statistics,
+ * checksum, assertions and completion are handled here the same way for all of them. Hooks of an exchange are called serially
+ */
+public class Exchange {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Exchange.class);
+
+    private final CompletableFuture<ResponseSummary> future = new CompletableFuture<>();
+
+    /**
+     * Null if not recorded
+     */
+    private final Statistics statistics;
+
+    private final long intendedTime;
+
+    /**
+     * Null if checksum is not computed
+     */
+    private final CRC32 crc;
+
+    /**
+     * Null if response is not checked
+     */
+    private final ResponseAssertion.State assertion;
+
+    /**
+     * Aggregated body, null if discarded
+     */
+    private byte[] body;
+
+    private long beginTime;
+
+    private int status;
+
+    private HttpHeaders headers;
+
+    private long bodyLength;
+
+    /**
+     * Flight event from send to completion, null if not recorded
+     */
+    private Object event;
+
+    /**
+     * @param statistics   statistics of request, nullable
+     * @param intendedTime intended start time, in {@link System#nanoTime()}
+     * @param aggregate    keep the body in the summary
+     * @param checksum     compute CRC32 of body
+     * @param assertion    checks of response, nullable
+     */
+    public Exchange(Statistics statistics, long intendedTime, boolean aggregate, boolean checksum, ResponseAssertion assertion) {
+        this.statistics = statistics;
+        this.intendedTime = intendedTime;
+        this.crc = checksum ? new CRC32() : null;
+        this.assertion = assertion == null ? null : assertion.newState();
+        this.body = aggregate ? new byte[0] : null;
+        this.beginTime = System.nanoTime();
+        if (statistics != null) {
+            statistics.onRequest();
+        }
+    }
+
+    public CompletableFuture<ResponseSummary> getFuture() {
+        return future;
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Timing hook: request is written to the connection, latency is measured from here
+     *
+     * @param bytesOut bytes of request body
+     */
+    public void onSent(long bytesOut) {
+        this.beginTime = System.nanoTime();
+        this.event = FlightEvents.beginRequest();
+        if (this.statistics != null) {
+            this.statistics.onBytesOut(bytesOut);
+        }
+    }
+
+    public void onStatus(int status) {
+        this.status = status;
+        if (this.assertion != null) {
+            this.assertion.onStatus(status);
+        }
+    }
+
+    public void onHeaders(HttpHeaders headers) {
+        this.headers = headers;
+        if (this.assertion != null) {
+            this.assertion.onHeaders(headers);
+        }
+    }
+
+    /**
+     * Body part, valid during the call only
+     *
+     * @param content
+     */
+    public void onBodyPart(ByteBuffer content) {
+        int length = content.remaining();
+        this.bodyLength += length;
+        if (this.statistics != null) {
+            this.statistics.onBytesIn(length);
+        }
+        if (length == 0) {
+            return;
+        }
+        if (this.crc != null) {
+            this.crc.update(content.duplicate());
+        }
+        if (this.assertion != null) {
+            this.assertion.onBodyPart(content);
+        }
+        if (this.body != null) {
+            int offset = (int) this.bodyLength - length;
+            if (this.bodyLength > this.body.length) {
+                this.body = Arrays.copyOf(this.body, (int) Math.max(this.body.length * 2L, this.bodyLength));
+            }
+            content.duplicate().get(this.body, offset, length);
+        }
+    }
+
+    /**
+     * Completion callback: end of response
+     *
+     * @return summary of response
+     */
+    public ResponseSummary onCompleted() {
+        long endTime = System.nanoTime();
+        long latency = endTime - this.beginTime;
+        String failure = this.assertion == null ? null : this.assertion.finish();
+        if (this.statistics != null) {
+            this.statistics.onResponse(this.status, latency, endTime - this.intendedTime);
+            if (failure != null) {
+                this.statistics.onFailure(failure);
+            }
+        }
+        FlightEvents.endRequest(this.event, this.status, null, this.bodyLength, endTime - this.intendedTime);
+        long checksum = this.crc == null ? -1 : this.crc.getValue();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Response {} ns ({} ns since intended), status: {}, body: {} bytes, crc32: {}, failure: {}", latency, endTime - this.intendedTime, this.status, this.bodyLength, checksum, failure);
+        }
+        byte[] body = this.body == null || this.body.length == this.bodyLength ? this.body : Arrays.copyOf(this.body, (int) this.bodyLength);
+        ResponseSummary summary = new ResponseSummary(this.status, this.headers, this.bodyLength, checksum, failure, body);
+        this.future.complete(summary);
+        return summary;
+    }
+
+    /**
+     * Completion callback: request failed
+     *
+     * @param t
+     */
+    public void onError(Throwable t) {
+        if (this.future.isDone()) {
+            return;
+        }
+        long responseTime = System.nanoTime() - this.intendedTime;
+        //失败和超时也计入响应时间，过载时尾延迟不被低估
+        if (this.statistics != null) {
+            this.statistics.onError(t, responseTime);
+        }
+        FlightEvents.endRequest(this.event, 0, t.getClass().getSimpleName(), this.bodyLength, responseTime);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Error: {} {}", t.getClass().getSimpleName(), t.getMessage());
+        }
+        this.future.completeExceptionally(t);
+    }
+}
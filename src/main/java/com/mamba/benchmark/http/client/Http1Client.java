@@ -0,0 +1,914 @@
+package com.mamba.benchmark.http.client;
+
+import com.google.common.collect.MapMaker;
+import com.mamba.benchmark.common.executor.impl.CustomThreadFactory;
+import com.mamba.benchmark.common.stat.Statistics;
+import com.mamba.benchmark.http.base.ResponseAssertion;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.DecoderResultProvider;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseDecoder;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lean HTTP/1.1 client written directly on Netty channels, for max-throughput tests of small requests.
+ * Requests are encoded into bytes on the calling thread, handed to the event loop of a keep-alive connection in batches
+ * and written with one flush per batch. Up to the configured number of requests are pipelined per connection,
+ * responses are matched in FIFO order; the excess waits in the queue of its connection.
+ */
+public class Http1Client implements HttpClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Http1Client.class);
+
+    private static final String USER_AGENT = "Benchmark/1.0";
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[] HEADER_SEPARATOR = {':', ' '};
+
+    /**
+     * Marks a base whose first derived request has been encoded, its head is not cached yet
+     */
+    private static final ByteBuf UNCACHED = Unpooled.EMPTY_BUFFER;
+
+    private final EventLoopGroup eventLoopGroup;
+
+    private final Bootstrap bootstrap;
+
+    private final Statistics statistics;
+
+    /**
+     * Connections per host
+     */
+    private final int connections;
+
+    /**
+     * Max requests in flight per connection, 1 for no pipelining
+     */
+    private final int pipelining;
+
+    private final int requestTimeout;
+
+    /**
+     * Count body parts and release them at once, without aggregating the body
+     */
+    private final boolean discardBody;
+
+    private final boolean checksum;
+
+    /**
+     * Trust any server certificate
+     */
+    private final boolean insecure;
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Heads encoded for base requests, keyed by identity and released with the base
+     */
+    private final ConcurrentMap<ClientRequest, ByteBuf> encodedHeads = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * Built on the first https url
+     */
+    private volatile SslContext sslContext;
+
+    private volatile boolean closed;
+
+    private Http1Client(Builder builder) {
+        this.eventLoopGroup = new NioEventLoopGroup(builder.ioThreadsCount, new CustomThreadFactory("H1C"));
+        this.bootstrap = new Bootstrap()
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, builder.connectTimeout);
+        this.statistics = builder.statistics;
+        this.connections = builder.connections;
+        this.pipelining = builder.pipelining;
+        this.requestTimeout = builder.requestTimeout;
+        this.discardBody = builder.discardBody;
+        this.checksum = builder.checksum;
+        this.insecure = builder.insecure;
+    }
+
+    @Override
+    public CompletableFuture<ResponseSummary> execute(ClientRequest request, long intendedTime, Statistics statistics, ResponseAssertion assertion) {
+        Exchange exchange = new Exchange(statistics == null ? this.statistics : statistics, intendedTime, !this.discardBody, this.checksum, assertion);
+        PipelinedRequest pipelinedRequest = new PipelinedRequest(exchange);
+        try {
+            pipelinedRequest.prepare(request, this.encodedHeads);
+        } catch (Exception e) {
+            pipelinedRequest.fail(e);
+            return exchange.getFuture();
+        }
+        this.endpoint(request.getUri()).submit(pipelinedRequest);
+        return exchange.getFuture();
+    }
+
+    private Endpoint endpoint(RequestUri uri) {
+        String key = uri.getScheme() + "://" + uri.getHost() + ':' + uri.getExplicitPort();
+        Endpoint endpoint = this.endpoints.get(key);
+        if (endpoint == null) {
+            endpoint = this.endpoints.computeIfAbsent(key, k -> new Endpoint(uri.isSecured(), uri.getHost(), uri.getExplicitPort()));
+        }
+        return endpoint;
+    }
+
+    private SslContext sslContext() throws SSLException {
+        SslContext sslContext = this.sslContext;
+        if (sslContext == null) {
+            synchronized (this) {
+                sslContext = this.sslContext;
+                if (sslContext == null) {
+                    SslContextBuilder builder = SslContextBuilder.forClient();
+                    if (this.insecure) {
+                        builder.trustManager(InsecureTrustManagerFactory.INSTANCE);
+                    }
+                    sslContext = builder.build();
+                    this.sslContext = sslContext;
+                }
+            }
+        }
+        return sslContext;
+    }
+
+    /**
+     * Open all connections of the hosts, a connection is ready once connected (and handshaked for https)
+     */
+    @Override
+    public CompletableFuture<Integer> warmUp(Collection<RequestUri> uris) {
+        Set<Endpoint> endpoints = new LinkedHashSet<>();
+        for (RequestUri uri : uris) {
+            endpoints.add(this.endpoint(uri));
+        }
+        List<Future<Channel>> futures = new ArrayList<>();
+        try {
+            for (Endpoint endpoint : endpoints) {
+                futures.addAll(endpoint.warmUp());
+            }
+        } catch (SSLException e) {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+            return result;
+        }
+        return NettyFutures.countSuccesses(futures);
+    }
+
+    /**
+     * Record connection lifecycle into the client statistics
+     */
+    private void onConnect(ChannelFuture future) {
+        if (this.statistics == null) {
+            return;
+        }
+        Statistics statistics = this.statistics;
+        if (future.isSuccess()) {
+            statistics.onConnectionOpened();
+            future.channel().closeFuture().addListener(f -> statistics.onConnectionClosed());
+        } else if (future.cause() instanceof ConnectTimeoutException) {
+            statistics.onConnectionTimeout();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        for (Endpoint endpoint : this.endpoints.values()) {
+            endpoint.close();
+        }
+        this.eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    /**
+     * Connections of a host, chosen in turn
+     */
+    private class Endpoint {
+
+        private final boolean secured;
+
+        private final String host;
+
+        private final int port;
+
+        private final AtomicReferenceArray<Connection> slots = new AtomicReferenceArray<>(connections);
+
+        private final AtomicInteger sequencer = new AtomicInteger();
+
+        private Endpoint(boolean secured, String host, int port) {
+            this.secured = secured;
+            this.host = host;
+            this.port = port;
+        }
+
+        private void submit(PipelinedRequest request) {
+            if (closed) {
+                request.fail(new ClosedChannelException());
+                return;
+            }
+            try {
+                this.acquire().submit(request);
+            } catch (Exception e) {
+                request.fail(e);
+            }
+        }
+
+        private Connection acquire() throws SSLException {
+            return this.acquire(Math.floorMod(this.sequencer.getAndIncrement(), this.slots.length()));
+        }
+
+        private Connection acquire(int index) throws SSLException {
+            Connection connection = this.slots.get(index);
+            if (connection != null && connection.isUsable()) {
+                return connection;
+            }
+            synchronized (this) {
+                connection = this.slots.get(index);
+                if (connection == null || !connection.isUsable()) {
+                    connection = this.connect();
+                    this.slots.set(index, connection);
+                }
+                return connection;
+            }
+        }
+
+        private Connection connect() throws SSLException {
+            SslContext sslContext = this.secured ? sslContext() : null;
+            EventLoop eventLoop = eventLoopGroup.next();
+            Promise<Channel> ready = eventLoop.newPromise();
+            PipelineHandler handler = new PipelineHandler(eventLoop, ready, pipelining, requestTimeout, statistics, this::submit);
+            ChannelFuture future = bootstrap.clone(eventLoop).handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    if (sslContext != null) {
+                        SslHandler sslHandler = sslContext.newHandler(ch.alloc(), host, port);
+                        sslHandler.handshakeFuture().addListener(f -> {
+                            if (f.isSuccess()) {
+                                ready.trySuccess(ch);
+                            } else {
+                                ready.tryFailure(f.cause());
+                            }
+                        });
+                        ch.pipeline().addLast(sslHandler);
+                    }
+                    ch.pipeline().addLast(new ResponseDecoder(handler), handler);
+                }
+            }).connect(this.host, this.port);
+            future.addListener(f -> {
+                onConnect(future);
+                if (!f.isSuccess()) {
+                    ready.tryFailure(f.cause());
+                } else if (sslContext == null) {
+                    ready.trySuccess(future.channel());
+                }
+            });
+            future.channel().closeFuture().addListener(f -> ready.tryFailure(new ClosedChannelException()));
+            return new Connection(future.channel(), handler);
+        }
+
+        /**
+         * Open all connections of the host
+         *
+         * @return futures of connections being ready
+         */
+        private List<Future<Channel>> warmUp() throws SSLException {
+            List<Future<Channel>> futures = new ArrayList<>();
+            for (int i = 0; i < this.slots.length(); i++) {
+                Connection connection = this.acquire(i);
+                futures.add(connection.handler.ready);
+            }
+            return futures;
+        }
+
+        private void close() {
+            for (int i = 0; i < this.slots.length(); i++) {
+                Connection connection = this.slots.get(i);
+                if (connection != null) {
+                    connection.channel.close();
+                }
+            }
+        }
+    }
+
+    private static class Connection {
+
+        private final Channel channel;
+
+        private final PipelineHandler handler;
+
+        private Connection(Channel channel, PipelineHandler handler) {
+            this.channel = channel;
+            this.handler = handler;
+        }
+
+        private boolean isUsable() {
+            return this.channel.isOpen() && !this.handler.closing;
+        }
+
+        private void submit(PipelinedRequest request) {
+            this.handler.submit(request);
+        }
+    }
+
+    /**
+     * Response decoder aware of HEAD requests, whose responses have headers only
+     */
+    private static class ResponseDecoder extends HttpResponseDecoder {
+
+        private final PipelineHandler handler;
+
+        private ResponseDecoder(PipelineHandler handler) {
+            super(4096, 8192, 8192, false);
+            this.handler = handler;
+        }
+
+        @Override
+        protected boolean isContentAlwaysEmpty(HttpMessage msg) {
+            PipelinedRequest head = this.handler.inflight.peek();
+            return (head != null && head.headOnly) || super.isContentAlwaysEmpty(msg);
+        }
+    }
+
+    /**
+     * Writes submitted requests up to the pipelining depth and matches responses to them in order,
+     * runs on the event loop of connection except {@link #submit(PipelinedRequest)}
+     */
+    private static class PipelineHandler extends ChannelInboundHandlerAdapter {
+
+        private final EventLoop eventLoop;
+
+        /**
+         * Succeeds once connected (after handshake for https)
+         */
+        private final Future<Channel> ready;
+
+        private final int pipelining;
+
+        private final int requestTimeout;
+
+        /**
+         * Client statistics, nullable
+         */
+        private final Statistics statistics;
+
+        /**
+         * Resubmits requests never written when the connection closes
+         */
+        private final Consumer<PipelinedRequest> reroute;
+
+        /**
+         * Requests submitted by callers, drained by the event loop
+         */
+        private final Queue<PipelinedRequest> submitted = PlatformDependent.newMpscQueue();
+
+        /**
+         * A drain of submitted requests is scheduled on the event loop
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * Written requests waiting for their responses, in order
+         */
+        private final Queue<PipelinedRequest> inflight = new ArrayDeque<>();
+
+        private final Runnable drain = this::drain;
+
+        private ChannelHandlerContext ctx;
+
+        private ScheduledFuture<?> timeoutCheck;
+
+        /**
+         * Server asked to close the connection, no more requests are written
+         */
+        private volatile boolean closing;
+
+        /**
+         * Skipping a 1xx informational response
+         */
+        private boolean informational;
+
+        private PipelineHandler(EventLoop eventLoop, Future<Channel> ready, int pipelining, int requestTimeout, Statistics statistics, Consumer<PipelinedRequest> reroute) {
+            this.eventLoop = eventLoop;
+            this.ready = ready;
+            this.pipelining = pipelining;
+            this.requestTimeout = requestTimeout;
+            this.statistics = statistics;
+            this.reroute = reroute;
+        }
+
+        /**
+         * Queue request and schedule a drain unless one is pending, callers are batched into one task and one flush
+         */
+        private void submit(PipelinedRequest request) {
+            this.submitted.offer(request);
+            if (!this.scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            if (this.ready.isDone()) {
+                this.eventLoop.execute(this.drain);
+            } else {
+                this.ready.addListener(f -> this.eventLoop.execute(this.drain));
+            }
+        }
+
+        private void drain() {
+            this.scheduled.set(false);
+            if (!this.ready.isSuccess()) {
+                this.failSubmitted(this.ready.cause());
+            } else if (!this.ctx.channel().isActive()) {
+                this.rerouteSubmitted();
+            } else {
+                this.dispatch();
+            }
+        }
+
+        /**
+         * Write submitted requests while the pipeline has room, then flush once
+         */
+        private void dispatch() {
+            boolean written = false;
+            while (!this.closing && this.inflight.size() < this.pipelining) {
+                PipelinedRequest request = this.submitted.poll();
+                if (request == null) {
+                    break;
+                }
+                if (request.done) {
+                    continue;
+                }
+                this.inflight.add(request);
+                request.start(this.ctx);
+                written = true;
+            }
+            if (written) {
+                this.ctx.flush();
+            }
+        }
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+            long period = Math.max(10, Math.min(1000, this.requestTimeout / 10));
+            this.timeoutCheck = ctx.executor().scheduleAtFixedRate(this::checkTimeout, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Responses come in order, so only the oldest request in flight can be the first to time out. The connection is
+         * closed on timeout, responses after it could not be matched any more
+         */
+        private void checkTimeout() {
+            PipelinedRequest head = this.inflight.peek();
+            if (head != null && System.nanoTime() - head.sentTime > TimeUnit.MILLISECONDS.toNanos(this.requestTimeout)) {
+                this.inflight.poll();
+                head.fail(new TimeoutException("Request timeout after " + this.requestTimeout + " ms"));
+                if (this.statistics != null) {
+                    this.statistics.onConnectionTimeout();
+                }
+                this.ctx.close();
+            }
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (msg instanceof DecoderResultProvider && ((DecoderResultProvider) msg).decoderResult().isFailure()) {
+                    this.onError(((DecoderResultProvider) msg).decoderResult().cause());
+                    return;
+                }
+                if (msg instanceof HttpResponse) {
+                    this.onResponse((HttpResponse) msg);
+                }
+                if (msg instanceof HttpContent) {
+                    this.onContent((HttpContent) msg);
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        private void onResponse(HttpResponse response) {
+            PipelinedRequest head = this.inflight.peek();
+            if (head == null) {
+                this.onError(new IllegalStateException("Unexpected response: " + response.status()));
+                return;
+            }
+            int status = response.status().code();
+            if (status < 200) {
+                //1xx informational
+                this.informational = true;
+                return;
+            }
+            if (!HttpUtil.isKeepAlive(response)) {
+                this.closing = true;
+            }
+            head.exchange.onStatus(status);
+            head.exchange.onHeaders(response.headers());
+        }
+
+        private void onContent(HttpContent content) {
+            boolean last = content instanceof LastHttpContent;
+            if (this.informational) {
+                this.informational = !last;
+                return;
+            }
+            PipelinedRequest head = this.inflight.peek();
+            if (head == null) {
+                return;
+            }
+            ByteBuf buf = content.content();
+            if (buf.isReadable()) {
+                for (ByteBuffer buffer : buf.nioBuffers()) {
+                    head.exchange.onBodyPart(buffer);
+                }
+            }
+            if (last) {
+                this.inflight.poll();
+                head.complete();
+                if (this.closing && this.inflight.isEmpty()) {
+                    this.ctx.close();
+                }
+            }
+        }
+
+        private void onError(Throwable cause) {
+            PipelinedRequest head = this.inflight.poll();
+            if (head != null) {
+                head.fail(cause);
+            }
+            this.ctx.close();
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            this.dispatch();
+            ctx.fireChannelReadComplete();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            LOGGER.debug("Connection error: {} {}", cause.getClass().getSimpleName(), cause.getMessage());
+            this.onError(cause);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            this.closing = true;
+            if (this.timeoutCheck != null) {
+                this.timeoutCheck.cancel(false);
+            }
+            ClosedChannelException cause = new ClosedChannelException();
+            for (PipelinedRequest request = this.inflight.poll(); request != null; request = this.inflight.poll()) {
+                request.fail(cause);
+            }
+            if (this.ready.isSuccess()) {
+                this.rerouteSubmitted();
+            } else {
+                this.failSubmitted(this.ready.isDone() ? this.ready.cause() : cause);
+            }
+            super.channelInactive(ctx);
+        }
+
+        /**
+         * Requests never written are safe to send on another connection, e.g. after the server closed this one
+         */
+        private void rerouteSubmitted() {
+            for (PipelinedRequest request = this.submitted.poll(); request != null; request = this.submitted.poll()) {
+                if (!request.done) {
+                    this.reroute.accept(request);
+                }
+            }
+        }
+
+        private void failSubmitted(Throwable cause) {
+            for (PipelinedRequest request = this.submitted.poll(); request != null; request = this.submitted.poll()) {
+                request.fail(cause);
+            }
+        }
+    }
+
+    /**
+     * A request encoded into bytes, owned by one thread at a time (caller, then the event loop of connection)
+     */
+    private static class PipelinedRequest {
+
+        private final Exchange exchange;
+
+        /**
+         * Head and body, null once written
+         */
+        private ByteBuf encoded;
+
+        private int bodyLength;
+
+        /**
+         * HEAD request, the response has no body
+         */
+        private boolean headOnly;
+
+        private long sentTime;
+
+        private boolean done;
+
+        private PipelinedRequest(Exchange exchange) {
+            this.exchange = exchange;
+        }
+
+        /**
+         * Encode request line and headers into a pooled buffer, the body is appended without copying. A request derived
+         * from a base reuses the head encoded once for the base, and encodes its own headers only
+         *
+         * @param request
+         * @param encodedHeads heads of base requests, see {@link #encodedHead(ConcurrentMap, ClientRequest)}
+         */
+        private void prepare(ClientRequest request, ConcurrentMap<ClientRequest, ByteBuf> encodedHeads) {
+            ClientRequest base = request.getBase();
+            ByteBuffer body = request.getBody();
+            ByteBuf shared = base == null || !isAppendable(request.getExtraHeaders()) ? null : encodedHead(encodedHeads, base);
+            ByteBuf head = PooledByteBufAllocator.DEFAULT.directBuffer(shared == null ? 256 : 64);
+            try {
+                if (shared == null) {
+                    writeHead(head, request);
+                } else {
+                    writeHeaders(head, request.getExtraHeaders());
+                }
+                head.writeBytes(CRLF);
+            } catch (RuntimeException e) {
+                head.release();
+                throw e;
+            }
+            this.bodyLength = body == null ? 0 : body.remaining();
+            if (shared != null) {
+                head = Unpooled.wrappedBuffer(shared.retainedDuplicate(), head);
+            }
+            this.encoded = this.bodyLength == 0 ? head : Unpooled.wrappedBuffer(head, Unpooled.wrappedBuffer(body));
+            this.headOnly = "HEAD".equals(request.getMethod());
+        }
+
+        /**
+         * Extra headers are appended to the head of base unless they are ones written with it
+         */
+        private static boolean isAppendable(HttpHeaders extraHeaders) {
+            return !extraHeaders.contains(HttpHeaderNames.HOST) && !extraHeaders.contains(HttpHeaderNames.USER_AGENT) && !extraHeaders.contains(HttpHeaderNames.CONTENT_LENGTH);
+        }
+
+        /**
+         * Head of base without the final CRLF, cached from the second derived request, so that requests of a replayed
+         * log (one base each) are not encoded twice
+         *
+         * @return null if not cached yet
+         */
+        private static ByteBuf encodedHead(ConcurrentMap<ClientRequest, ByteBuf> encodedHeads, ClientRequest base) {
+            ByteBuf shared = encodedHeads.putIfAbsent(base, UNCACHED);
+            if (shared != UNCACHED) {
+                return shared;
+            }
+            ByteBuf buf = Unpooled.buffer(256);
+            writeHead(buf, base);
+            //堆外内存随base回收
+            ByteBuffer direct = ByteBuffer.allocateDirect(buf.readableBytes());
+            buf.readBytes(direct);
+            direct.flip();
+            shared = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(direct));
+            encodedHeads.put(base, shared);
+            return shared;
+        }
+
+        /**
+         * Request line and headers, without the final CRLF
+         */
+        private static void writeHead(ByteBuf head, ClientRequest request) {
+            RequestUri uri = request.getUri();
+            HttpHeaders headers = request.getHeaders();
+            ByteBufUtil.writeAscii(head, request.getMethod());
+            head.writeByte(' ');
+            ByteBufUtil.writeAscii(head, uri.toRelativeUrl());
+            ByteBufUtil.writeAscii(head, " HTTP/1.1");
+            head.writeBytes(CRLF);
+            if (!headers.contains(HttpHeaderNames.HOST)) {
+                writeHeader(head, HttpHeaderNames.HOST, uri.getAuthority());
+            }
+            if (!headers.contains(HttpHeaderNames.USER_AGENT)) {
+                writeHeader(head, HttpHeaderNames.USER_AGENT, USER_AGENT);
+            }
+            if (request.getBody() != null && !headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
+                writeHeader(head, HttpHeaderNames.CONTENT_LENGTH, Integer.toString(request.getContentLength()));
+            }
+            writeHeaders(head, headers);
+        }
+
+        private static void writeHeaders(ByteBuf buf, HttpHeaders headers) {
+            for (Iterator<Map.Entry<CharSequence, CharSequence>> it = headers.iteratorCharSequence(); it.hasNext(); ) {
+                Map.Entry<CharSequence, CharSequence> header = it.next();
+                writeHeader(buf, header.getKey(), header.getValue());
+            }
+        }
+
+        private static void writeHeader(ByteBuf buf, CharSequence name, CharSequence value) {
+            ByteBufUtil.writeAscii(buf, name);
+            buf.writeBytes(HEADER_SEPARATOR);
+            ByteBufUtil.writeAscii(buf, value);
+            buf.writeBytes(CRLF);
+        }
+
+        /**
+         * Write without flush, a failed write closes the connection and fails the requests in flight
+         */
+        private void start(ChannelHandlerContext ctx) {
+            this.sentTime = System.nanoTime();
+            this.exchange.onSent(this.bodyLength);
+            ctx.write(this.encoded, ctx.voidPromise());
+            this.encoded = null;
+        }
+
+        private void complete() {
+            if (this.done) {
+                return;
+            }
+            this.done = true;
+            this.exchange.onCompleted();
+        }
+
+        private void fail(Throwable t) {
+            if (this.done) {
+                return;
+            }
+            this.done = true;
+            if (this.encoded != null) {
+                this.encoded.release();
+                this.encoded = null;
+            }
+            this.exchange.onError(t);
+        }
+    }
+
+    public static class Builder {
+
+        private int ioThreadsCount = Math.max(1, Runtime.getRuntime().availableProcessors() * 3 / 4);
+
+        private int connections = 5;
+
+        private int pipelining = 1;
+
+        private int connectTimeout = 1000;
+
+        private int requestTimeout = 60000;
+
+        private Statistics statistics;
+
+        private boolean discardBody;
+
+        private boolean checksum;
+
+        private boolean insecure;
+
+        private Builder() {
+        }
+
+        public static Http1Client.Builder custom() {
+            return new Http1Client.Builder();
+        }
+
+        public Http1Client.Builder ioThreadsCount(int nThreads) {
+            this.ioThreadsCount = nThreads;
+            return this;
+        }
+
+        /**
+         * Connections per host
+         *
+         * @param connections
+         * @return
+         */
+        public Http1Client.Builder connections(int connections) {
+            if (connections < 1) {
+                throw new IllegalArgumentException("Invalid connections: " + connections);
+            }
+            this.connections = connections;
+            return this;
+        }
+
+        /**
+         * Max requests in flight per connection, 1 for no pipelining
+         *
+         * @param pipelining
+         * @return
+         */
+        public Http1Client.Builder pipelining(int pipelining) {
+            if (pipelining < 1) {
+                throw new IllegalArgumentException("Invalid pipelining: " + pipelining);
+            }
+            this.pipelining = pipelining;
+            return this;
+        }
+
+        public Http1Client.Builder timeout(int timeout) {
+            this.connectTimeout = Math.min(timeout, 1000);
+            this.requestTimeout = timeout;
+            return this;
+        }
+
+        public Http1Client.Builder connectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Http1Client.Builder requestTimeout(int requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public Http1Client.Builder statistics(Statistics statistics) {
+            this.statistics = statistics;
+            return this;
+        }
+
+        /**
+         * Count body parts as they arrive and release them at once, responses keep status, headers and size only
+         *
+         * @param discardBody
+         * @return
+         */
+        public Http1Client.Builder discardBody(boolean discardBody) {
+            this.discardBody = discardBody;
+            return this;
+        }
+
+        /**
+         * Compute CRC32 of response body
+         *
+         * @param checksum
+         * @return
+         */
+        public Http1Client.Builder checksum(boolean checksum) {
+            this.checksum = checksum;
+            return this;
+        }
+
+        /**
+         * Trust any server certificate, e.g. self-signed ones of local servers
+         *
+         * @param insecure
+         * @return
+         */
+        public Http1Client.Builder insecure(boolean insecure) {
+            this.insecure = insecure;
+            return this;
+        }
+
+        public Http1Client build() {
+            return new Http1Client(this);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.mamba.benchmark.http.client;
+
+/**
+ * Raw Netty HTTP/1.1 engine with pipelining, see {@link Http1Client}
+ */
+public class Http1ClientEngine implements HttpClientEngine {
+
+    @Override
+    public String getName() {
+        return "h1";
+    }
+
+    @Override
+    public HttpClient newClient(ClientOptions options) {
+        Http1Client.Builder builder = Http1Client.Builder.custom()
+                .statistics(options.getStatistics())
+                .discardBody(options.isDiscardBody())
+                .checksum(options.isChecksum())
+                .insecure(options.isInsecure());
+        if (options.getConnections() > 0) {
+            builder.connections(options.getConnections());
+        }
+        if (options.getPipelining() > 0) {
+            builder.pipelining(options.getPipelining());
+        }
+        if (options.getTimeout() > 0) {
+            builder.timeout(options.getTimeout());
+        }
+        if (options.getConnectTimeout() > 0) {
+            builder.connectTimeout(options.getConnectTimeout());
+        }
+        return builder.build();
+    }
+}
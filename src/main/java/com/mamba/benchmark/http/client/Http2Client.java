@@ -0,0 +1,848 @@
+package com.mamba.benchmark.http.client;
+
+import com.mamba.benchmark.common.executor.impl.CustomThreadFactory;
+import com.mamba.benchmark.common.stat.Statistics;
+import com.mamba.benchmark.http.base.ResponseAssertion;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.DefaultHttp2ResetFrame;
+import io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import io.netty.handler.codec.http2.Http2ChannelDuplexHandler;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2FrameStream;
+import io.netty.handler.codec.http2.Http2FrameStreamException;
+import io.netty.handler.codec.http2.Http2GoAwayFrame;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2ResetFrame;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * HTTP/2 client on Netty's HTTP/2 codec: h2c with prior knowledge for http urls, h2 negotiated by ALPN for https urls.
+ * Requests are multiplexed as streams over a fixed number of connections per host, each connection carries at most
+ * the configured (and server allowed) concurrent streams, the excess waits in the queue of its connection.
+ */
+public class Http2Client implements HttpClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Http2Client.class);
+
+    private static final String USER_AGENT = "Benchmark/1.0";
+
+    private final EventLoopGroup eventLoopGroup;
+
+    private final Bootstrap bootstrap;
+
+    private final Statistics statistics;
+
+    /**
+     * Connections per host
+     */
+    private final int connections;
+
+    /**
+     * Max concurrent streams per connection, capped by the SETTINGS of server
+     */
+    private final int maxConcurrentStreams;
+
+    /**
+     * Initial flow-control window of streams and connection
+     */
+    private final int initialWindowSize;
+
+    private final int requestTimeout;
+
+    /**
+     * Count body parts and release them at once, without aggregating the body
+     */
+    private final boolean discardBody;
+
+    private final boolean checksum;
+
+    /**
+     * Trust any server certificate
+     */
+    private final boolean insecure;
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Built on the first https url
+     */
+    private volatile SslContext sslContext;
+
+    private Http2Client(Builder builder) {
+        this.eventLoopGroup = new NioEventLoopGroup(builder.ioThreadsCount, new CustomThreadFactory("H2C"));
+        this.bootstrap = new Bootstrap()
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, builder.connectTimeout);
+        this.statistics = builder.statistics;
+        this.connections = builder.connections;
+        this.maxConcurrentStreams = builder.maxConcurrentStreams;
+        this.initialWindowSize = builder.initialWindowSize;
+        this.requestTimeout = builder.requestTimeout;
+        this.discardBody = builder.discardBody;
+        this.checksum = builder.checksum;
+        this.insecure = builder.insecure;
+    }
+
+    @Override
+    public CompletableFuture<ResponseSummary> execute(ClientRequest request, long intendedTime, Statistics statistics, ResponseAssertion assertion) {
+        Exchange exchange = new Exchange(statistics == null ? this.statistics : statistics, intendedTime, !this.discardBody, this.checksum, assertion);
+        StreamRequest streamRequest = new StreamRequest(exchange);
+        try {
+            streamRequest.prepare(request);
+            this.endpoint(request.getUri()).acquire().submit(streamRequest);
+        } catch (Exception e) {
+            streamRequest.fail(e);
+        }
+        return exchange.getFuture();
+    }
+
+    private Endpoint endpoint(RequestUri uri) {
+        String key = uri.getScheme() + "://" + uri.getHost() + ':' + uri.getExplicitPort();
+        Endpoint endpoint = this.endpoints.get(key);
+        if (endpoint == null) {
+            endpoint = this.endpoints.computeIfAbsent(key, k -> new Endpoint(uri.isSecured(), uri.getHost(), uri.getExplicitPort()));
+        }
+        return endpoint;
+    }
+
+    private SslContext sslContext() throws SSLException {
+        SslContext sslContext = this.sslContext;
+        if (sslContext == null) {
+            synchronized (this) {
+                sslContext = this.sslContext;
+                if (sslContext == null) {
+                    SslContextBuilder builder = SslContextBuilder.forClient()
+                            .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+                            .applicationProtocolConfig(new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
+                                    ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                                    ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                                    ApplicationProtocolNames.HTTP_2));
+                    if (this.insecure) {
+                        builder.trustManager(InsecureTrustManagerFactory.INSTANCE);
+                    }
+                    sslContext = builder.build();
+                    this.sslContext = sslContext;
+                }
+            }
+        }
+        return sslContext;
+    }
+
+    /**
+     * Open all connections of the hosts, a connection is ready once connected (and handshaked for https)
+     */
+    @Override
+    public CompletableFuture<Integer> warmUp(Collection<RequestUri> uris) {
+        Set<Endpoint> endpoints = new LinkedHashSet<>();
+        for (RequestUri uri : uris) {
+            endpoints.add(this.endpoint(uri));
+        }
+        List<Future<Channel>> futures = new ArrayList<>();
+        try {
+            for (Endpoint endpoint : endpoints) {
+                futures.addAll(endpoint.warmUp());
+            }
+        } catch (SSLException e) {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+            return result;
+        }
+        return NettyFutures.countSuccesses(futures);
+    }
+
+    /**
+     * Record connection lifecycle into the client statistics
+     */
+    private void onConnect(ChannelFuture future) {
+        if (this.statistics == null) {
+            return;
+        }
+        Statistics statistics = this.statistics;
+        if (future.isSuccess()) {
+            statistics.onConnectionOpened();
+            future.channel().closeFuture().addListener(f -> statistics.onConnectionClosed());
+        } else if (future.cause() instanceof ConnectTimeoutException) {
+            statistics.onConnectionTimeout();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Endpoint endpoint : this.endpoints.values()) {
+            endpoint.close();
+        }
+        this.eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    /**
+     * Connections of a host, chosen in turn
+     */
+    private class Endpoint {
+
+        private final boolean secured;
+
+        private final String host;
+
+        private final int port;
+
+        private final AtomicReferenceArray<Connection> slots = new AtomicReferenceArray<>(connections);
+
+        private final AtomicInteger sequencer = new AtomicInteger();
+
+        private Endpoint(boolean secured, String host, int port) {
+            this.secured = secured;
+            this.host = host;
+            this.port = port;
+        }
+
+        private Connection acquire() throws SSLException {
+            return this.acquire(Math.floorMod(this.sequencer.getAndIncrement(), this.slots.length()));
+        }
+
+        private Connection acquire(int index) throws SSLException {
+            Connection connection = this.slots.get(index);
+            if (connection != null && connection.isUsable()) {
+                return connection;
+            }
+            synchronized (this) {
+                connection = this.slots.get(index);
+                if (connection == null || !connection.isUsable()) {
+                    connection = this.connect();
+                    this.slots.set(index, connection);
+                }
+                return connection;
+            }
+        }
+
+        private Connection connect() throws SSLException {
+            SslContext sslContext = this.secured ? sslContext() : null;
+            EventLoop eventLoop = eventLoopGroup.next();
+            Promise<Channel> ready = eventLoop.newPromise();
+            StreamHandler handler = new StreamHandler(ready, maxConcurrentStreams, requestTimeout);
+            Http2FrameCodec codec = Http2FrameCodecBuilder.forClient()
+                    .initialSettings(Http2Settings.defaultSettings().initialWindowSize(initialWindowSize).pushEnabled(false))
+                    .build();
+            ChannelFuture future = bootstrap.clone(eventLoop).handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    if (sslContext == null) {
+                        ch.pipeline().addLast(codec, handler);
+                        return;
+                    }
+                    ch.pipeline().addLast(sslContext.newHandler(ch.alloc(), host, port), new ApplicationProtocolNegotiationHandler("") {
+                        @Override
+                        protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+                            if (!ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                                throw new IllegalStateException("Protocol not negotiated to h2: " + protocol);
+                            }
+                            ctx.pipeline().addLast(codec, handler);
+                        }
+
+                        @Override
+                        protected void handshakeFailure(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+                            ready.tryFailure(cause);
+                            super.handshakeFailure(ctx, cause);
+                        }
+                    });
+                }
+            }).connect(this.host, this.port);
+            future.addListener(f -> {
+                onConnect(future);
+                if (!f.isSuccess()) {
+                    ready.tryFailure(f.cause());
+                }
+            });
+            future.channel().closeFuture().addListener(f -> ready.tryFailure(new ClosedChannelException()));
+            return new Connection(future.channel(), ready, handler);
+        }
+
+        /**
+         * Open all connections of the host
+         *
+         * @return futures of connections being ready
+         */
+        private List<Future<Channel>> warmUp() throws SSLException {
+            List<Future<Channel>> futures = new ArrayList<>();
+            for (int i = 0; i < this.slots.length(); i++) {
+                Connection connection = this.acquire(i);
+                futures.add(connection.ready);
+            }
+            return futures;
+        }
+
+        private void close() {
+            for (int i = 0; i < this.slots.length(); i++) {
+                Connection connection = this.slots.get(i);
+                if (connection != null) {
+                    connection.channel.close();
+                }
+            }
+        }
+    }
+
+    private static class Connection {
+
+        private final Channel channel;
+
+        /**
+         * Succeeds once the HTTP/2 codec is in place (after ALPN for h2)
+         */
+        private final Future<Channel> ready;
+
+        private final StreamHandler handler;
+
+        private Connection(Channel channel, Future<Channel> ready, StreamHandler handler) {
+            this.channel = channel;
+            this.ready = ready;
+            this.handler = handler;
+        }
+
+        private boolean isUsable() {
+            return this.channel.isOpen() && !this.handler.goAway;
+        }
+
+        private void submit(StreamRequest request) {
+            if (this.ready.isSuccess()) {
+                this.write(request);
+                return;
+            }
+            this.ready.addListener(f -> {
+                if (f.isSuccess()) {
+                    this.write(request);
+                } else {
+                    request.fail(f.cause());
+                }
+            });
+        }
+
+        private void write(StreamRequest request) {
+            this.channel.writeAndFlush(request).addListener(f -> {
+                if (!f.isSuccess()) {
+                    request.fail(f.cause());
+                }
+            });
+        }
+    }
+
+    /**
+     * Opens a stream per request written to the channel and dispatches its frames, runs on the event loop of connection
+     */
+    private static class StreamHandler extends Http2ChannelDuplexHandler {
+
+        private final Promise<Channel> ready;
+
+        private final int maxConcurrentStreams;
+
+        private final int requestTimeout;
+
+        private final Map<Http2FrameStream, StreamRequest> streams = new HashMap<>();
+
+        /**
+         * Requests waiting for a free stream
+         */
+        private final Queue<StreamRequest> pending = new ArrayDeque<>();
+
+        private ChannelHandlerContext ctx;
+
+        private Http2FrameCodec codec;
+
+        private volatile boolean goAway;
+
+        private StreamHandler(Promise<Channel> ready, int maxConcurrentStreams, int requestTimeout) {
+            this.ready = ready;
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            this.requestTimeout = requestTimeout;
+        }
+
+        @Override
+        protected void handlerAdded0(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+            this.codec = ctx.pipeline().get(Http2FrameCodec.class);
+            if (ctx.channel().isActive()) {
+                this.ready.trySuccess(ctx.channel());
+            }
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            this.ready.trySuccess(ctx.channel());
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (!(msg instanceof StreamRequest)) {
+                ctx.write(msg, promise);
+                return;
+            }
+            promise.setSuccess();
+            StreamRequest request = (StreamRequest) msg;
+            if (this.goAway) {
+                request.fail(new ClosedChannelException());
+            } else if (this.canStart()) {
+                this.start(request);
+            } else {
+                this.pending.add(request);
+            }
+        }
+
+        /**
+         * Whether a stream can be opened now, the codec counts a stream as active until its last frame has been read
+         */
+        private boolean canStart() {
+            return this.streams.size() < this.maxConcurrentStreams && this.codec.connection().local().canOpenStream();
+        }
+
+        private void start(StreamRequest request) {
+            Http2FrameStream stream = this.newStream();
+            this.streams.put(stream, request);
+            request.start(this.ctx, stream).addListener(f -> {
+                if (!f.isSuccess()) {
+                    this.onStreamError(stream, f.cause());
+                    this.ctx.executor().execute(this::drain);
+                }
+            });
+            request.timeout = this.ctx.executor().schedule(() -> {
+                if (this.streams.remove(stream) != null) {
+                    request.fail(new TimeoutException("Request timeout after " + this.requestTimeout + " ms"));
+                    this.ctx.writeAndFlush(new DefaultHttp2ResetFrame(Http2Error.CANCEL).stream(stream)).addListener(f -> {
+                        this.drain();
+                        this.closeIfDrained();
+                    });
+                }
+            }, this.requestTimeout, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Start waiting requests while streams are free, and flush their frames, since drain may run outside of reads
+         * (after a stream error or a timeout) where nothing else would flush them
+         */
+        private void drain() {
+            boolean started = false;
+            while (!this.goAway && !this.pending.isEmpty() && this.canStart()) {
+                this.start(this.pending.poll());
+                started = true;
+            }
+            if (started) {
+                this.ctx.flush();
+            }
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (msg instanceof Http2HeadersFrame) {
+                    Http2HeadersFrame frame = (Http2HeadersFrame) msg;
+                    StreamRequest request = this.streams.get(frame.stream());
+                    if (request != null) {
+                        request.onHeaders(frame.headers());
+                        if (frame.isEndStream()) {
+                            this.complete(frame.stream());
+                        }
+                    }
+                } else if (msg instanceof Http2DataFrame) {
+                    Http2DataFrame frame = (Http2DataFrame) msg;
+                    //归还流控窗口
+                    if (frame.initialFlowControlledBytes() > 0) {
+                        ctx.write(new DefaultHttp2WindowUpdateFrame(frame.initialFlowControlledBytes()).stream(frame.stream()));
+                    }
+                    StreamRequest request = this.streams.get(frame.stream());
+                    if (request != null) {
+                        request.onData(frame.content());
+                        if (frame.isEndStream()) {
+                            this.complete(frame.stream());
+                        }
+                    }
+                } else if (msg instanceof Http2ResetFrame) {
+                    Http2ResetFrame frame = (Http2ResetFrame) msg;
+                    Http2Error error = Http2Error.valueOf(frame.errorCode());
+                    this.onStreamError(frame.stream(), Http2Exception.streamError(frame.stream().id(), error == null ? Http2Error.INTERNAL_ERROR : error, "Stream reset by server"));
+                } else if (msg instanceof Http2GoAwayFrame) {
+                    this.onGoAway(((Http2GoAwayFrame) msg).lastStreamId());
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            //流在读回调返回后才由编解码器关闭，此时再启动排队的请求
+            this.drain();
+            ctx.flush();
+            ctx.fireChannelReadComplete();
+        }
+
+        private void complete(Http2FrameStream stream) {
+            this.streams.remove(stream).complete();
+            this.closeIfDrained();
+        }
+
+        private void onStreamError(Http2FrameStream stream, Throwable cause) {
+            StreamRequest request = this.streams.remove(stream);
+            if (request != null) {
+                request.fail(cause);
+            }
+            this.closeIfDrained();
+        }
+
+        /**
+         * After GOAWAY the connection is closed with its last stream, the slot has already moved to a new one
+         */
+        private void closeIfDrained() {
+            if (this.goAway && this.streams.isEmpty()) {
+                this.ctx.close();
+            }
+        }
+
+        /**
+         * Streams above the last one processed by server and waiting requests fail, the connection closes once idle
+         */
+        private void onGoAway(int lastStreamId) {
+            this.goAway = true;
+            this.streams.entrySet().removeIf(entry -> {
+                if (entry.getKey().id() > lastStreamId) {
+                    entry.getValue().fail(new ClosedChannelException());
+                    return true;
+                }
+                return false;
+            });
+            this.failPending(new ClosedChannelException());
+            this.closeIfDrained();
+        }
+
+        private void failPending(Throwable cause) {
+            for (StreamRequest request = this.pending.poll(); request != null; request = this.pending.poll()) {
+                request.fail(cause);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            if (cause instanceof Http2FrameStreamException) {
+                this.onStreamError(((Http2FrameStreamException) cause).stream(), cause.getCause() == null ? cause : cause.getCause());
+                return;
+            }
+            LOGGER.debug("Connection error: {} {}", cause.getClass().getSimpleName(), cause.getMessage());
+            ctx.close();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            this.goAway = true;
+            ClosedChannelException cause = new ClosedChannelException();
+            this.streams.values().forEach(request -> request.fail(cause));
+            this.streams.clear();
+            this.failPending(cause);
+            super.channelInactive(ctx);
+        }
+    }
+
+    /**
+     * A request on a stream, owned by one thread at a time (caller, then the event loop of connection)
+     */
+    private static class StreamRequest {
+
+        private final Exchange exchange;
+
+        private Http2Headers headers;
+
+        private ByteBuf body;
+
+        private ScheduledFuture<?> timeout;
+
+        private boolean responded;
+
+        private boolean done;
+
+        private StreamRequest(Exchange exchange) {
+            this.exchange = exchange;
+        }
+
+        /**
+         * Convert request into HTTP/2 headers and body, connection-specific headers are dropped
+         */
+        private void prepare(ClientRequest request) {
+            RequestUri uri = request.getUri();
+            Http2Headers headers = new DefaultHttp2Headers(false)
+                    .method(request.getMethod())
+                    .scheme(uri.getScheme())
+                    .authority(uri.getAuthority())
+                    .path(uri.toRelativeUrl());
+            HttpConversionUtil.toHttp2Headers(request.getHeaders(), headers);
+            if (!headers.contains(HttpHeaderNames.USER_AGENT)) {
+                headers.set(HttpHeaderNames.USER_AGENT, USER_AGENT);
+            }
+            ByteBuffer body = request.getBody();
+            if (body != null && !headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
+                headers.setInt(HttpHeaderNames.CONTENT_LENGTH, body.remaining());
+            }
+            this.headers = headers;
+            this.body = body == null ? null : Unpooled.wrappedBuffer(body);
+        }
+
+        /**
+         * Write headers and body on the stream
+         *
+         * @return future of the last write
+         */
+        private ChannelFuture start(ChannelHandlerContext ctx, Http2FrameStream stream) {
+            boolean hasBody = this.body != null && this.body.isReadable();
+            this.exchange.onSent(hasBody ? this.body.readableBytes() : 0);
+            ChannelFuture future = ctx.write(new DefaultHttp2HeadersFrame(this.headers, !hasBody).stream(stream));
+            if (hasBody) {
+                future = ctx.write(new DefaultHttp2DataFrame(this.body, true).stream(stream));
+            } else if (this.body != null) {
+                this.body.release();
+            }
+            this.body = null;
+            return future;
+        }
+
+        private void onHeaders(Http2Headers headers) {
+            if (this.responded || headers.status() == null) {
+                //trailers
+                return;
+            }
+            int status = Integer.parseInt(headers.status().toString());
+            if (status < 200) {
+                //1xx informational
+                return;
+            }
+            this.responded = true;
+            HttpHeaders responseHeaders = new DefaultHttpHeaders(false);
+            headers.forEach(header -> {
+                if (header.getKey().length() == 0 || header.getKey().charAt(0) != ':') {
+                    responseHeaders.add(header.getKey(), header.getValue());
+                }
+            });
+            this.exchange.onStatus(status);
+            this.exchange.onHeaders(responseHeaders);
+        }
+
+        private void onData(ByteBuf content) {
+            if (!content.isReadable()) {
+                return;
+            }
+            for (ByteBuffer buffer : content.nioBuffers()) {
+                this.exchange.onBodyPart(buffer);
+            }
+        }
+
+        private void complete() {
+            if (this.done) {
+                return;
+            }
+            this.done = true;
+            this.cancelTimeout();
+            this.exchange.onCompleted();
+        }
+
+        private void fail(Throwable t) {
+            if (this.done) {
+                return;
+            }
+            this.done = true;
+            this.cancelTimeout();
+            if (this.body != null) {
+                this.body.release();
+                this.body = null;
+            }
+            this.exchange.onError(t);
+        }
+
+        private void cancelTimeout() {
+            if (this.timeout != null) {
+                this.timeout.cancel(false);
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private int ioThreadsCount = Math.max(1, Runtime.getRuntime().availableProcessors() * 3 / 4);
+
+        private int connections = 1;
+
+        private int maxConcurrentStreams = 100;
+
+        private int initialWindowSize = 1 << 20;
+
+        private int connectTimeout = 1000;
+
+        private int requestTimeout = 60000;
+
+        private Statistics statistics;
+
+        private boolean discardBody;
+
+        private boolean checksum;
+
+        private boolean insecure;
+
+        private Builder() {
+        }
+
+        public static Http2Client.Builder custom() {
+            return new Http2Client.Builder();
+        }
+
+        public Http2Client.Builder ioThreadsCount(int nThreads) {
+            this.ioThreadsCount = nThreads;
+            return this;
+        }
+
+        /**
+         * Connections per host
+         *
+         * @param connections
+         * @return
+         */
+        public Http2Client.Builder connections(int connections) {
+            if (connections < 1) {
+                throw new IllegalArgumentException("Invalid connections: " + connections);
+            }
+            this.connections = connections;
+            return this;
+        }
+
+        /**
+         * Max concurrent streams per connection, the server may allow fewer
+         *
+         * @param maxConcurrentStreams
+         * @return
+         */
+        public Http2Client.Builder maxConcurrentStreams(int maxConcurrentStreams) {
+            if (maxConcurrentStreams < 1) {
+                throw new IllegalArgumentException("Invalid maxConcurrentStreams: " + maxConcurrentStreams);
+            }
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            return this;
+        }
+
+        public Http2Client.Builder initialWindowSize(int initialWindowSize) {
+            this.initialWindowSize = initialWindowSize;
+            return this;
+        }
+
+        public Http2Client.Builder timeout(int timeout) {
+            this.connectTimeout = Math.min(timeout, 1000);
+            this.requestTimeout = timeout;
+            return this;
+        }
+
+        public Http2Client.Builder connectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Http2Client.Builder requestTimeout(int requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public Http2Client.Builder statistics(Statistics statistics) {
+            this.statistics = statistics;
+            return this;
+        }
+
+        /**
+         * Count body parts as they arrive and release them at once, responses keep status, headers and size only
+         *
+         * @param discardBody
+         * @return
+         */
+        public Http2Client.Builder discardBody(boolean discardBody) {
+            this.discardBody = discardBody;
+            return this;
+        }
+
+        /**
+         * Compute CRC32 of response body
+         *
+         * @param checksum
+         * @return
+         */
+        public Http2Client.Builder checksum(boolean checksum) {
+            this.checksum = checksum;
+            return this;
+        }
+
+        /**
+         * Trust any server certificate, e.g. self-signed ones of local servers
+         *
+         * @param insecure
+         * @return
+         */
+        public Http2Client.Builder insecure(boolean insecure) {
+            this.insecure = insecure;
+            return this;
+        }
+
+        public Http2Client build() {
+            return new Http2Client(this);
+        }
+    }
+}
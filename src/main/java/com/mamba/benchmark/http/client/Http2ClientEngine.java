@@ -0,0 +1,34 @@
+package com.mamba.benchmark.http.client;
+
+/**
+ * HTTP/2 engine, see {@link Http2Client}
+ */
+public class Http2ClientEngine implements HttpClientEngine {
+
+    @Override
+    public String getName() {
+        return "h2";
+    }
+
+    @Override
+    public HttpClient newClient(ClientOptions options) {
+        Http2Client.Builder builder = Http2Client.Builder.custom()
+                .statistics(options.getStatistics())
+                .discardBody(options.isDiscardBody())
+                .checksum(options.isChecksum())
+                .insecure(options.isInsecure());
+        if (options.getConnections() > 0) {
+            builder.connections(options.getConnections());
+        }
+        if (options.getMaxConcurrentStreams() > 0) {
+            builder.maxConcurrentStreams(options.getMaxConcurrentStreams());
+        }
+        if (options.getTimeout() > 0) {
+            builder.timeout(options.getTimeout());
+        }
+        if (options.getConnectTimeout() > 0) {
+            builder.connectTimeout(options.getConnectTimeout());
+        }
+        return builder.build();
+    }
+}
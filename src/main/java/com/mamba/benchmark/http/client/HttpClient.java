@@ -0,0 +1,43 @@
+package com.mamba.benchmark.http.client;
+
+import com.mamba.benchmark.common.stat.Statistics;
+import com.mamba.benchmark.http.base.ResponseAssertion;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client executing prepared requests, created by a {@link HttpClientEngine}
+ */
+public interface HttpClient extends Closeable {
+
+    /**
+     * Execute request, checking the response while its body streams in
+     *
+     * @param request
+     * @param intendedTime intended start time, in {@link System#nanoTime()}
+     * @param statistics   statistics of request, null for the client ones
+     * @param assertion    checks of response, nullable
+     * @return
+     */
+    CompletableFuture<ResponseSummary> execute(ClientRequest request, long intendedTime, Statistics statistics, ResponseAssertion assertion);
+
+    default CompletableFuture<ResponseSummary> execute(ClientRequest request, long intendedTime) {
+        return this.execute(request, intendedTime, null, null);
+    }
+
+    default CompletableFuture<ResponseSummary> execute(ClientRequest request) {
+        return this.execute(request, System.nanoTime());
+    }
+
+    /**
+     * Open and validate the configured connections to the hosts of uris, so the run does not pay for TCP and TLS setup
+     *
+     * @param uris targets, only scheme, host and port matter
+     * @return number of connections ready
+     */
+    default CompletableFuture<Integer> warmUp(Collection<RequestUri> uris) {
+        return CompletableFuture.completedFuture(0);
+    }
+}
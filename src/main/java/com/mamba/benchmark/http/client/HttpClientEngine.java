@@ -0,0 +1,39 @@
+package com.mamba.benchmark.http.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Client engine provider, registered in META-INF/services/com.mamba.benchmark.http.client.HttpClientEngine and
+ * found by {@link ServiceLoader}
+ */
+public interface HttpClientEngine {
+
+    /**
+     * Name to select the engine by, e.g. -engine ahc
+     *
+     * @return
+     */
+    String getName();
+
+    HttpClient newClient(ClientOptions options);
+
+    /**
+     * Find engine by name
+     *
+     * @param name
+     * @return
+     * @throws IllegalArgumentException if no engine of the name is registered
+     */
+    static HttpClientEngine load(String name) {
+        List<String> names = new ArrayList<>();
+        for (HttpClientEngine engine : ServiceLoader.load(HttpClientEngine.class)) {
+            if (engine.getName().equalsIgnoreCase(name)) {
+                return engine;
+            }
+            names.add(engine.getName());
+        }
+        throw new IllegalArgumentException("Invalid engine: " + name + ", available: " + names);
+    }
+}
@@ -0,0 +1,43 @@
+package com.mamba.benchmark.http.client;
+
+import io.netty.util.concurrent.Future;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bridges Netty futures to {@link CompletableFuture}
+ */
+final class NettyFutures {
+
+    private NettyFutures() {
+    }
+
+    /**
+     * Count the successful futures once all are done
+     *
+     * @param futures
+     * @return
+     */
+    static CompletableFuture<Integer> countSuccesses(List<? extends Future<?>> futures) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        if (futures.isEmpty()) {
+            result.complete(0);
+            return result;
+        }
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        AtomicInteger successes = new AtomicInteger();
+        for (Future<?> future : futures) {
+            future.addListener(f -> {
+                if (f.isSuccess()) {
+                    successes.incrementAndGet();
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    result.complete(successes.get());
+                }
+            });
+        }
+        return result;
+    }
+}
@@ -1,75 +1,350 @@
 package com.mamba.benchmark.http.client;
 
 import com.mamba.benchmark.common.executor.impl.CustomThreadFactory;
-import org.asynchttpclient.AsyncCompletionHandler;
+import com.mamba.benchmark.common.stat.Statistics;
+import com.mamba.benchmark.http.base.ResponseAssertion;
+import io.netty.channel.Channel;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpUtil;
+import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig;
 import org.asynchttpclient.DefaultAsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.DefaultRequest;
 import org.asynchttpclient.Dsl;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
 import org.asynchttpclient.Request;
-import org.asynchttpclient.Response;
+import org.asynchttpclient.RequestBuilder;
+import org.asynchttpclient.RequestBuilderBase;
+import org.asynchttpclient.channel.ChannelPoolPartitioning;
 import org.asynchttpclient.netty.request.NettyRequest;
+import org.asynchttpclient.uri.Uri;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.Closeable;
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
-public class NettyHttpClient implements Closeable {
+/**
+ * HTTP/1.1 client engine based on AsyncHttpClient
+ */
+public class NettyHttpClient implements HttpClient {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyHttpClient.class);
 
     private final AsyncHttpClient httpClient;
 
-    public NettyHttpClient(AsyncHttpClient httpClient) {
+    private final Statistics statistics;
+
+    /**
+     * Count body parts and release them at once, without building the full response
+     */
+    private final boolean discardBody;
+
+    /**
+     * Compute CRC32 of body
+     */
+    private final boolean checksum;
+
+    /**
+     * Adaptive per-host connection limit, nullable
+     */
+    private final AdaptiveConnectionPool pool;
+
+    public NettyHttpClient(AsyncHttpClient httpClient, Statistics statistics) {
+        this(httpClient, statistics, false, false);
+    }
+
+    public NettyHttpClient(AsyncHttpClient httpClient, Statistics statistics, boolean discardBody, boolean checksum) {
+        this(httpClient, statistics, discardBody, checksum, null);
+    }
+
+    public NettyHttpClient(AsyncHttpClient httpClient, Statistics statistics, boolean discardBody, boolean checksum, AdaptiveConnectionPool pool) {
         this.httpClient = httpClient;
+        this.statistics = statistics;
+        this.discardBody = discardBody;
+        this.checksum = checksum;
+        this.pool = pool;
     }
 
-    public CompletableFuture<Response> execute(Request request) {
-        return this.httpClient.executeRequest(request, new ProgressHandler()).toCompletableFuture();
+    /**
+     * Execute request, recording into the given statistics instead of the client ones
+     *
+     * @param request
+     * @param intendedTime intended start time, in {@link System#nanoTime()}
+     * @param statistics   statistics of request, null for the client ones
+     * @return
+     */
+    public CompletableFuture<ResponseSummary> execute(ClientRequest request, long intendedTime, Statistics statistics) {
+        return this.execute(request, intendedTime, statistics, null);
+    }
+
+    @Override
+    public CompletableFuture<ResponseSummary> execute(ClientRequest request, long intendedTime, Statistics statistics, ResponseAssertion assertion) {
+        Exchange exchange = new Exchange(statistics == null ? this.statistics : statistics, intendedTime, !this.discardBody, this.checksum, assertion);
+        Request ahcRequest = toRequest(request);
+        AdaptiveConnectionPool.Host host = null;
+        if (this.pool != null) {
+            host = this.pool.getHost(ChannelPoolPartitioning.PerHostChannelPoolPartitioning.INSTANCE.getPartitionKey(ahcRequest.getUri(), null, null));
+            host.onRequest();
+        }
+        ProgressHandler handler = new ProgressHandler(this.statistics, exchange, host);
+        try {
+            this.httpClient.executeRequest(ahcRequest, handler);
+        } catch (RuntimeException e) {
+            handler.onThrowable(e);
+        }
+        return exchange.getFuture();
+    }
+
+    /**
+     * Convert to AsyncHttpClient request, the body buffer is duplicated (the client resets it before writing)
+     */
+    private static Request toRequest(ClientRequest request) {
+        return new DefaultRequest(request.getMethod(), toUri(request.getUri()), null, null, request.getHeaders(), Collections.emptyList(),
+                null, null, null, request.getBody(), null, null, null, null, null, null, null, null, null,
+                0, 0, 0, null, ChannelPoolPartitioning.PerHostChannelPoolPartitioning.INSTANCE, RequestBuilderBase.DEFAULT_NAME_RESOLVER);
+    }
+
+    /**
+     * Convert to AsyncHttpClient uri from its parts, without parsing
+     */
+    private static Uri toUri(RequestUri uri) {
+        return new Uri(uri.getScheme(), null, uri.getHost(), uri.getPort(), uri.getPath(), uri.getQuery(), null);
+    }
+
+    /**
+     * Send as many concurrent HEAD requests to each host as it may have connections, each opens its own connection,
+     * which is kept alive in the pool for the run. Any response validates the connection, whatever its status
+     */
+    @Override
+    public CompletableFuture<Integer> warmUp(Collection<RequestUri> uris) {
+        Map<String, RequestUri> hosts = new LinkedHashMap<>();
+        for (RequestUri uri : uris) {
+            hosts.putIfAbsent(uri.getScheme() + "://" + uri.getHost() + ':' + uri.getExplicitPort(), uri);
+        }
+        if (hosts.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        AsyncHttpClientConfig config = this.httpClient.getConfig();
+        int connections = Math.max(1, config.getMaxConnectionsPerHost());
+        if (config.getMaxConnections() > 0) {
+            connections = Math.min(connections, Math.max(1, config.getMaxConnections() / hosts.size()));
+        }
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (RequestUri uri : hosts.values()) {
+            Request request = new RequestBuilder("HEAD").setUri(toUri(uri)).build();
+            for (int i = 0; i < connections; i++) {
+                futures.add(this.httpClient.executeRequest(request, new WarmUpHandler(this.statistics)).toCompletableFuture());
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((v, t) -> {
+            int ready = 0;
+            for (CompletableFuture<Boolean> future : futures) {
+                if (!future.isCompletedExceptionally() && future.join()) {
+                    ready++;
+                }
+            }
+            return ready;
+        });
     }
 
     @Override
     public void close() throws IOException {
         this.httpClient.close();
+        if (this.pool != null) {
+            this.pool.close();
+        }
+    }
+
+    /**
+     * Records the connection lifecycle into the client statistics: opened, reused, closed and timed-out connections,
+     * and the wait for a connection until the request is written
+     */
+    private abstract static class LifecycleHandler<T> implements AsyncHandler<T> {
+
+        /**
+         * Client statistics, nullable
+         */
+        private final Statistics statistics;
+
+        private final long createTime = System.nanoTime();
+
+        private boolean sent;
+
+        private LifecycleHandler(Statistics statistics) {
+            this.statistics = statistics;
+        }
+
+        @Override
+        public void onTcpConnectSuccess(InetSocketAddress remoteAddress, Channel connection) {
+            if (this.statistics != null) {
+                Statistics statistics = this.statistics;
+                statistics.onConnectionOpened();
+                connection.closeFuture().addListener(f -> statistics.onConnectionClosed());
+            }
+        }
+
+        @Override
+        public void onTcpConnectFailure(InetSocketAddress remoteAddress, Throwable cause) {
+            if (this.statistics != null && cause instanceof ConnectTimeoutException) {
+                this.statistics.onConnectionTimeout();
+            }
+        }
+
+        @Override
+        public void onConnectionPooled(Channel connection) {
+            if (this.statistics != null) {
+                this.statistics.onConnectionReused();
+            }
+        }
+
+        @Override
+        public void onRequestSend(NettyRequest request) {
+            if (this.statistics != null && !this.sent) {
+                this.statistics.onPoolWait(System.nanoTime() - this.createTime);
+            }
+            this.sent = true;
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            //请求超时后连接被关闭
+            if (this.statistics != null && t instanceof TimeoutException) {
+                this.statistics.onConnectionTimeout();
+            }
+        }
+    }
+
+    private static class WarmUpHandler extends LifecycleHandler<Boolean> {
+
+        private WarmUpHandler(Statistics statistics) {
+            super(statistics);
+        }
+
+        @Override
+        public State onStatusReceived(HttpResponseStatus responseStatus) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public State onHeadersReceived(HttpHeaders headers) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart content) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public Boolean onCompleted() {
+            return true;
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            super.onThrowable(t);
+            LOGGER.debug("Warm up error: {} {}", t.getClass().getSimpleName(), t.getMessage());
+        }
     }
 
-    private static class ProgressHandler extends AsyncCompletionHandler<Response> {
+    private static class ProgressHandler extends LifecycleHandler<ResponseSummary> {
+
+        private final Exchange exchange;
 
-        private long beginTime;
+        /**
+         * Demand of the target host, nullable
+         */
+        private AdaptiveConnectionPool.Host host;
+
+        private ProgressHandler(Statistics statistics, Exchange exchange, AdaptiveConnectionPool.Host host) {
+            super(statistics);
+            this.exchange = exchange;
+            this.host = host;
+        }
+
+        private void release() {
+            if (this.host != null) {
+                this.host.onResponse();
+                this.host = null;
+            }
+        }
 
         @Override
         public void onRequestSend(NettyRequest request) {
-            this.beginTime = System.currentTimeMillis();
-            request.getHttpRequest().headers();
-            LOGGER.info("Send");
+            super.onRequestSend(request);
+            this.exchange.onSent(HttpUtil.getContentLength(request.getHttpRequest(), 0L));
+        }
+
+        @Override
+        public State onStatusReceived(HttpResponseStatus responseStatus) {
+            this.exchange.onStatus(responseStatus.getStatusCode());
+            return State.CONTINUE;
         }
 
         @Override
-        public Response onCompleted(Response response) throws Exception {
-            long endTime = System.currentTimeMillis();
-            long latency = endTime - beginTime;
-            LOGGER.info("Response {} ms, status: {}", latency, response.getStatusCode());
-            return response;
+        public State onHeadersReceived(HttpHeaders headers) {
+            this.exchange.onHeaders(headers);
+            return State.CONTINUE;
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart content) {
+            this.exchange.onBodyPart(content.getBodyByteBuffer());
+            return State.CONTINUE;
+        }
+
+        @Override
+        public ResponseSummary onCompleted() {
+            this.release();
+            return this.exchange.onCompleted();
         }
 
         @Override
         public void onThrowable(Throwable t) {
-            LOGGER.info("Error: {} {}", t.getClass().getSimpleName(), t.getMessage());
+            super.onThrowable(t);
+            this.release();
+            this.exchange.onError(t);
         }
     }
 
     public static class Builder {
 
+        /**
+         * Connections per host unless configured
+         */
+        static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 5;
+
         private final DefaultAsyncHttpClientConfig.Builder builder = Dsl.config();
 
+        private Statistics statistics;
+
+        private boolean discardBody;
+
+        private boolean checksum;
+
+        private int minConnectionsPerHost;
+
+        private int maxConnectionsPerHost;
+
         private Builder() {
             this.builder.setUserAgent("Benchmark/1.0");
             this.builder.setThreadFactory(new CustomThreadFactory("NHC"));
             this.builder.setIoThreadsCount(Math.max(1, Runtime.getRuntime().availableProcessors() * 3 / 4));
             this.builder.setMaxConnections(50);
-            this.builder.setMaxConnectionsPerHost(5);
+            this.builder.setMaxConnectionsPerHost(DEFAULT_MAX_CONNECTIONS_PER_HOST);
             this.builder.setConnectTimeout(1000);
         }
 
@@ -92,11 +367,57 @@ public class NettyHttpClient implements Closeable {
             return this;
         }
 
+        /**
+         * Resize the connections per host between the bounds by the observed demand, see {@link AdaptiveConnectionPool},
+         * the global limit of connections does not apply then
+         *
+         * @param minConnectionsPerHost
+         * @param maxConnectionsPerHost
+         * @return
+         */
+        public NettyHttpClient.Builder adaptiveConnectionsPerHost(int minConnectionsPerHost, int maxConnectionsPerHost) {
+            this.minConnectionsPerHost = minConnectionsPerHost;
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        public NettyHttpClient.Builder pooledConnectionIdleTimeout(int pooledConnectionIdleTimeout) {
+            this.builder.setPooledConnectionIdleTimeout(pooledConnectionIdleTimeout);
+            return this;
+        }
+
         public NettyHttpClient.Builder keepAlive(boolean keepAlive) {
             this.builder.setKeepAlive(keepAlive);
             return this;
         }
 
+        public NettyHttpClient.Builder connectTimeout(int connectTimeout) {
+            this.builder.setConnectTimeout(connectTimeout);
+            return this;
+        }
+
+        /**
+         * Trust any server certificate
+         *
+         * @param insecure
+         * @return
+         */
+        public NettyHttpClient.Builder insecure(boolean insecure) {
+            this.builder.setUseInsecureTrustManager(insecure);
+            return this;
+        }
+
+        /**
+         * Wait up to the timeout for a free connection when the pool is exhausted, instead of failing at once
+         *
+         * @param acquireFreeChannelTimeout in milliseconds, 0 for no wait
+         * @return
+         */
+        public NettyHttpClient.Builder acquireFreeChannelTimeout(int acquireFreeChannelTimeout) {
+            this.builder.setAcquireFreeChannelTimeout(acquireFreeChannelTimeout);
+            return this;
+        }
+
         public NettyHttpClient.Builder timeout(int timeout) {
             this.builder.setConnectTimeout(Math.min(timeout, 1000)).setRequestTimeout(timeout).setReadTimeout(timeout);
             return this;
@@ -122,9 +443,45 @@ public class NettyHttpClient implements Closeable {
             return this;
         }
 
+        public NettyHttpClient.Builder statistics(Statistics statistics) {
+            this.statistics = statistics;
+            return this;
+        }
+
+        /**
+         * Count body parts as they arrive and release them at once, responses keep status, headers and size only
+         *
+         * @param discardBody
+         * @return
+         */
+        public NettyHttpClient.Builder discardBody(boolean discardBody) {
+            this.discardBody = discardBody;
+            return this;
+        }
+
+        /**
+         * Compute CRC32 of response body
+         *
+         * @param checksum
+         * @return
+         */
+        public NettyHttpClient.Builder checksum(boolean checksum) {
+            this.checksum = checksum;
+            return this;
+        }
+
         public NettyHttpClient build() {
+            //丢弃响应体时直接引用网络缓冲区，回调返回后即释放
+            this.builder.setResponseBodyPartFactory(this.discardBody ? AsyncHttpClientConfig.ResponseBodyPartFactory.LAZY : AsyncHttpClientConfig.ResponseBodyPartFactory.EAGER);
+            AdaptiveConnectionPool pool = null;
+            if (this.maxConnectionsPerHost > 0) {
+                pool = new AdaptiveConnectionPool(this.minConnectionsPerHost, this.maxConnectionsPerHost);
+                //预热按下限建连
+                this.builder.setConnectionSemaphoreFactory(pool).setMaxConnectionsPerHost(this.minConnectionsPerHost);
+                pool.start();
+            }
             DefaultAsyncHttpClient httpClient = new DefaultAsyncHttpClient(this.builder.build());
-            return new NettyHttpClient(httpClient);
+            return new NettyHttpClient(httpClient, this.statistics, this.discardBody, this.checksum, pool);
         }
     }
 }
@@ -0,0 +1,183 @@
+package com.mamba.benchmark.http.client;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Absolute http(s) uri of a {@link ClientRequest}: scheme, host, port, raw path and query. Engines read the parts they
+ * need without depending on the uri type of any client library; user info and fragment are never sent, so dropped
+ */
+public final class RequestUri {
+
+    public static final String HTTP = "http";
+
+    public static final String HTTPS = "https";
+
+    private final String scheme;
+
+    private final String host;
+
+    /**
+     * -1 if not given
+     */
+    private final int port;
+
+    /**
+     * Raw path, empty if none
+     */
+    private final String path;
+
+    /**
+     * Raw query without '?', null if none
+     */
+    private final String query;
+
+    public RequestUri(String scheme, String host, int port, String path, String query) {
+        if (!HTTP.equals(scheme) && !HTTPS.equals(scheme)) {
+            throw new IllegalArgumentException("Unsupported scheme: " + scheme);
+        }
+        if (host == null || host.isEmpty()) {
+            throw new IllegalArgumentException("Missing host");
+        }
+        if (port < -1 || port > 65535) {
+            throw new IllegalArgumentException("Invalid port: " + port);
+        }
+        this.scheme = scheme;
+        this.host = host;
+        this.port = port;
+        this.path = path == null ? "" : path;
+        this.query = query;
+    }
+
+    /**
+     * Parse an absolute url, the path and query are kept as written (not encoded nor decoded)
+     *
+     * @param url
+     * @return
+     */
+    public static RequestUri create(String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd <= 0) {
+            throw new IllegalArgumentException("Invalid url: " + url);
+        }
+        int authorityStart = schemeEnd + 3;
+        int authorityEnd = authorityStart;
+        while (authorityEnd < url.length() && "/?#".indexOf(url.charAt(authorityEnd)) < 0) {
+            authorityEnd++;
+        }
+        int end = url.indexOf('#', authorityEnd);
+        if (end < 0) {
+            end = url.length();
+        }
+        int userInfoEnd = url.lastIndexOf('@', authorityEnd - 1);
+        String authority = url.substring(userInfoEnd >= authorityStart ? userInfoEnd + 1 : authorityStart, authorityEnd);
+        String host = authority;
+        int port = -1;
+        int portSeparator = authority.lastIndexOf(':');
+        if (portSeparator > authority.lastIndexOf(']')) {
+            host = authority.substring(0, portSeparator);
+            try {
+                port = Integer.parseInt(authority.substring(portSeparator + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid url: " + url, e);
+            }
+        }
+        int queryStart = url.indexOf('?', authorityEnd);
+        if (queryStart < 0 || queryStart > end) {
+            queryStart = end;
+        }
+        try {
+            return new RequestUri(url.substring(0, schemeEnd).toLowerCase(Locale.ROOT), host, port, url.substring(authorityEnd, queryStart),
+                    queryStart < end ? url.substring(queryStart + 1, end) : null);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid url: " + url, e);
+        }
+    }
+
+    public String getScheme() {
+        return scheme;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return -1 if not given
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Port to connect to, the default one of scheme if not given
+     *
+     * @return
+     */
+    public int getExplicitPort() {
+        return port != -1 ? port : isSecured() ? 443 : 80;
+    }
+
+    public boolean isSecured() {
+        return HTTPS.equals(scheme);
+    }
+
+    /**
+     * @return raw path, empty if none
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return raw query, null if none
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * Host with the port if given, as in the Host header
+     *
+     * @return
+     */
+    public String getAuthority() {
+        return port == -1 ? host : host + ':' + port;
+    }
+
+    /**
+     * Path and query, as in the request line
+     *
+     * @return
+     */
+    public String toRelativeUrl() {
+        String path = this.path.isEmpty() ? "/" : this.path;
+        return query == null ? path : path + '?' + query;
+    }
+
+    public String toUrl() {
+        return scheme + "://" + getAuthority() + toRelativeUrl();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestUri)) {
+            return false;
+        }
+        RequestUri that = (RequestUri) o;
+        return port == that.port && scheme.equals(that.scheme) && host.equals(that.host) && path.equals(that.path) && Objects.equals(query, that.query);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(scheme, host, port, path, query);
+    }
+
+    @Override
+    public String toString() {
+        return toUrl();
+    }
+}
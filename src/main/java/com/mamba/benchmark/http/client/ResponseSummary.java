@@ -0,0 +1,74 @@
+package com.mamba.benchmark.http.client;
+
+import io.netty.handler.codec.http.HttpHeaders;
+
+/**
+ * Outcome of a request: status, headers and size of body, the body itself is kept only if the client does not discard it
+ */
+public class ResponseSummary {
+
+    private final int status;
+
+    private final HttpHeaders headers;
+
+    private final long bodyLength;
+
+    private final long checksum;
+
+    private final String failure;
+
+    private final byte[] body;
+
+    public ResponseSummary(int status, HttpHeaders headers, long bodyLength, long checksum, String failure, byte[] body) {
+        this.status = status;
+        this.headers = headers;
+        this.bodyLength = bodyLength;
+        this.checksum = checksum;
+        this.failure = failure;
+        this.body = body;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Bytes of body received
+     *
+     * @return
+     */
+    public long getBodyLength() {
+        return bodyLength;
+    }
+
+    /**
+     * CRC32 of body
+     *
+     * @return checksum, -1 if not computed
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Category of the failed assertion
+     *
+     * @return null if passed or not checked
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    /**
+     * Aggregated body
+     *
+     * @return null if body is discarded
+     */
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -1,5 +1,68 @@
 package com.mamba.benchmark.http.define;
 
-public class Invocation {
+import com.mamba.benchmark.common.executor.AsyncTask;
+import com.mamba.benchmark.common.executor.TimedTask;
+import com.mamba.benchmark.common.stat.Statistics;
+import com.mamba.benchmark.http.base.ResponseAssertion;
+import com.mamba.benchmark.http.client.ClientRequest;
+import com.mamba.benchmark.http.client.HttpClient;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Invocation of a prepared request
+ */
+public class Invocation implements TimedTask, AsyncTask {
+
+    private final HttpClient httpClient;
+
+    private final ClientRequest request;
+
+    /**
+     * Run without waiting for the response
+     */
+    private final boolean async;
+
+    /**
+     * Statistics of request, null for the client ones
+     */
+    private final Statistics statistics;
+
+    /**
+     * Checks of response, nullable
+     */
+    private final ResponseAssertion assertion;
+
+    public Invocation(HttpClient httpClient, ClientRequest request, boolean async) {
+        this(httpClient, request, async, null);
+    }
+
+    public Invocation(HttpClient httpClient, ClientRequest request, boolean async, Statistics statistics) {
+        this(httpClient, request, async, statistics, null);
+    }
+
+    public Invocation(HttpClient httpClient, ClientRequest request, boolean async, Statistics statistics, ResponseAssertion assertion) {
+        this.httpClient = httpClient;
+        this.request = request;
+        this.async = async;
+        this.statistics = statistics;
+        this.assertion = assertion;
+    }
+
+    @Override
+    public void run(long intendedTime) {
+        CompletableFuture<?> future = this.execute(intendedTime);
+        if (!this.async) {
+            future.join();
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> start() {
+        return this.execute(System.nanoTime());
+    }
+
+    private CompletableFuture<?> execute(long intendedTime) {
+        return this.httpClient.execute(this.request, intendedTime, this.statistics, this.assertion);
+    }
 }
@@ -0,0 +1,31 @@
+package com.mamba.benchmark.http.define;
+
+import com.mamba.benchmark.common.executor.ScheduledTask;
+import com.mamba.benchmark.http.base.ResponseAssertion;
+import com.mamba.benchmark.http.client.ClientRequest;
+import com.mamba.benchmark.http.client.HttpClient;
+
+/**
+ * Invocation with its own start time
+ */
+public class ScheduledInvocation extends Invocation implements ScheduledTask {
+
+    private final long offset;
+
+    /**
+     * @param httpClient
+     * @param request
+     * @param async
+     * @param assertion  checks of response, nullable
+     * @param offset     start time relative to the start of executor, in nanoseconds
+     */
+    public ScheduledInvocation(HttpClient httpClient, ClientRequest request, boolean async, ResponseAssertion assertion, long offset) {
+        super(httpClient, request, async, null, assertion);
+        this.offset = offset;
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+}
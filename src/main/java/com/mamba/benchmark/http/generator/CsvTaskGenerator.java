@@ -0,0 +1,109 @@
+package com.mamba.benchmark.http.generator;
+
+import com.google.common.escape.Escaper;
+import com.google.common.net.MediaType;
+import com.google.common.net.PercentEscaper;
+import com.mamba.benchmark.common.dataset.CsvDataset;
+import com.mamba.benchmark.common.dataset.Template;
+import com.mamba.benchmark.http.base.HttpRequest;
+import com.mamba.benchmark.http.base.body.StringBody;
+import com.mamba.benchmark.http.client.HttpClient;
+import com.mamba.benchmark.http.client.RequestUri;
+import com.mamba.benchmark.http.define.Invocation;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.AsciiString;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Fills ${column} placeholders of url, header values and string body from the records of a csv dataset
+ */
+public class CsvTaskGenerator implements IntFunction<List<Invocation>> {
+
+    /**
+     * Values in url are percent-encoded except unreserved characters, so they are safe in both path and query
+     */
+    private static final Escaper URL_ESCAPER = new PercentEscaper("-._~", false);
+
+    private final HttpClient httpClient;
+
+    private final HttpRequest request;
+
+    private final CsvDataset dataset;
+
+    private final boolean async;
+
+    /**
+     * Null if url has no placeholder
+     */
+    private final Template uri;
+
+    private final AsciiString[] headerNames;
+
+    private final Template[] headerValues;
+
+    /**
+     * Null if body is not a string with placeholders
+     */
+    private final Template body;
+
+    private final Charset charset;
+
+    public CsvTaskGenerator(HttpClient httpClient, HttpRequest request, CsvDataset dataset, boolean async) {
+        this.httpClient = httpClient;
+        this.request = request;
+        this.dataset = dataset;
+        this.async = async;
+        String url = request.getUri().toUrl();
+        this.uri = Template.hasPlaceholder(url) ? Template.compile(url, dataset::indexOf) : null;
+        List<AsciiString> headerNames = new ArrayList<>();
+        List<Template> headerValues = new ArrayList<>();
+        for (Iterator<Map.Entry<CharSequence, CharSequence>> it = request.getHeaders().iteratorCharSequence(); it.hasNext(); ) {
+            Map.Entry<CharSequence, CharSequence> header = it.next();
+            String value = header.getValue().toString();
+            if (Template.hasPlaceholder(value)) {
+                headerNames.add(AsciiString.of(header.getKey()));
+                headerValues.add(Template.compile(value, dataset::indexOf));
+            }
+        }
+        this.headerNames = headerNames.toArray(new AsciiString[0]);
+        this.headerValues = headerValues.toArray(new Template[0]);
+        if (request.getBody() instanceof StringBody && Template.hasPlaceholder(((StringBody) request.getBody()).get())) {
+            this.body = Template.compile(((StringBody) request.getBody()).get(), dataset::indexOf);
+        } else {
+            this.body = null;
+        }
+        MediaType mediaType = request.getMediaType();
+        this.charset = mediaType == null ? StandardCharsets.UTF_8 : mediaType.charset().or(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public List<Invocation> apply(int num) {
+        List<Invocation> tasks = new ArrayList<>(num);
+        for (int i = 0; i < num; i++) {
+            String[] record = this.dataset.next();
+            RequestUri uri = this.uri == null ? null : RequestUri.create(this.uri.render(record, URL_ESCAPER::escape));
+            HttpHeaders headers = null;
+            if (this.headerNames.length > 0) {
+                headers = new DefaultHttpHeaders(false);
+                for (int j = 0; j < this.headerNames.length; j++) {
+                    headers.add(this.headerNames[j], this.headerValues[j].render(record));
+                }
+            }
+            byte[] body = this.body == null ? null : this.body.render(record).getBytes(this.charset);
+            tasks.add(new Invocation(this.httpClient, this.request.toRequest(uri, headers, body), this.async, null, this.request.getAssertion()));
+        }
+        return tasks;
+    }
+
+    public static CsvTaskGenerator newInstance(HttpClient httpClient, HttpRequest request, CsvDataset dataset, boolean async) {
+        return new CsvTaskGenerator(httpClient, request, dataset, async);
+    }
+}
@@ -0,0 +1,183 @@
+package com.mamba.benchmark.http.generator;
+
+import com.alibaba.fastjson.JSONObject;
+import com.mamba.benchmark.common.executor.impl.CustomThreadFactory;
+import com.mamba.benchmark.http.base.HttpRequest;
+import com.mamba.benchmark.http.client.HttpClient;
+import com.mamba.benchmark.http.define.Invocation;
+import com.mamba.benchmark.http.define.ScheduledInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Replays a JSONL request log (one request per line, with its timestamp in milliseconds) at the recorded inter-arrival times divided by speed.
+ * Lines are parsed by a read-ahead thread, so that generating tasks never waits on I/O. A shard of the log replays every count-th record,
+ * timed from the first record of the whole log, so that the shards of all agents together replay the log once
+ */
+public class ReplayTaskGenerator implements IntFunction<List<Invocation>>, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplayTaskGenerator.class);
+
+    /**
+     * Max count of parsed requests waiting for replay
+     */
+    private static final int READ_AHEAD = 10000;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final HttpClient httpClient;
+
+    private final double speed;
+
+    private final boolean async;
+
+    /**
+     * Index of shard, records of other shards are skipped unparsed
+     */
+    private final int shard;
+
+    private final int shards;
+
+    private final BufferedReader reader;
+
+    private final BlockingQueue<Invocation> queue = new ArrayBlockingQueue<>(READ_AHEAD);
+
+    private final Thread readAhead;
+
+    /**
+     * Timestamp of the first record (accessed by read-ahead thread only)
+     */
+    private long baseTimestamp = -1;
+
+    /**
+     * @param httpClient
+     * @param file       request log
+     * @param speed      multiplier of replay speed, 2 replays twice as fast as recorded
+     * @param async
+     * @throws IOException
+     */
+    public ReplayTaskGenerator(HttpClient httpClient, File file, double speed, boolean async) throws IOException {
+        this(httpClient, file, speed, async, 0, 1);
+    }
+
+    /**
+     * @param httpClient
+     * @param file       request log
+     * @param speed      multiplier of replay speed, 2 replays twice as fast as recorded
+     * @param async
+     * @param shard      index of shard, replays the records whose index modulo shards is shard
+     * @param shards     shard count
+     * @throws IOException
+     */
+    public ReplayTaskGenerator(HttpClient httpClient, File file, double speed, boolean async, int shard, int shards) throws IOException {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Invalid speed: " + speed);
+        }
+        if (shard < 0 || shard >= shards) {
+            throw new IllegalArgumentException("Invalid shard: " + shard + " of " + shards);
+        }
+        this.httpClient = httpClient;
+        this.speed = speed;
+        this.async = async;
+        this.shard = shard;
+        this.shards = shards;
+        this.reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.readAhead = new CustomThreadFactory("replayer").newThread(this::readAhead);
+        this.readAhead.start();
+    }
+
+    private void readAhead() {
+        long lines = 0;
+        long records = 0;
+        long index = -1;
+        try {
+            for (String line = this.reader.readLine(); line != null; line = this.reader.readLine()) {
+                lines++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                index++;
+                //第一条记录决定所有分片的时间基准
+                if (index % this.shards != this.shard && this.baseTimestamp >= 0) {
+                    continue;
+                }
+                Invocation invocation;
+                try {
+                    invocation = this.parse(line);
+                } catch (Exception e) {
+                    LOGGER.warn("skip invalid record at line {}: {}", lines, e.getMessage());
+                    continue;
+                }
+                if (index % this.shards != this.shard) {
+                    continue;
+                }
+                this.queue.put(invocation);
+                records++;
+            }
+            LOGGER.info("request log finished, lines: {}, records: {}", lines, records);
+        } catch (InterruptedException e) {
+            LOGGER.info("replay stopped at line {}", lines);
+        } catch (IOException e) {
+            LOGGER.error("read request log error: {}", e.getMessage(), e);
+        }
+    }
+
+    private Invocation parse(String line) {
+        JSONObject json = JSONObject.parseObject(line);
+        Long timestamp = json.getLong("timestamp");
+        if (timestamp == null) {
+            throw new IllegalArgumentException("Empty timestamp");
+        }
+        HttpRequest request = HttpRequest.parse(json);
+        if (this.baseTimestamp < 0) {
+            this.baseTimestamp = timestamp;
+        }
+        long offset = (long) (TimeUnit.MILLISECONDS.toNanos(timestamp - this.baseTimestamp) / this.speed);
+        return new ScheduledInvocation(this.httpClient, request.toRequest(), this.async, request.getAssertion(), Math.max(offset, 0));
+    }
+
+    /**
+     * Parsed requests in log order, never blocks
+     *
+     * @param num max count of requests
+     * @return requests, empty if the read-ahead thread falls behind or the log is finished
+     */
+    @Override
+    public List<Invocation> apply(int num) {
+        List<Invocation> tasks = new ArrayList<>(Math.min(num, READ_AHEAD));
+        this.queue.drainTo(tasks, num);
+        return tasks;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.readAhead.interrupt();
+        try {
+            this.readAhead.join(1000);
+        } catch (InterruptedException e) {
+        }
+        this.reader.close();
+    }
+
+    public static ReplayTaskGenerator newInstance(HttpClient httpClient, File file, double speed, boolean async) throws IOException {
+        return new ReplayTaskGenerator(httpClient, file, speed, async);
+    }
+
+    public static ReplayTaskGenerator newInstance(HttpClient httpClient, File file, double speed, boolean async, int shard, int shards) throws IOException {
+        return new ReplayTaskGenerator(httpClient, file, speed, async, shard, shards);
+    }
+}
@@ -0,0 +1,82 @@
+package com.mamba.benchmark.http.generator;
+
+import com.mamba.benchmark.common.stat.Statistics;
+import com.mamba.benchmark.common.util.AliasTable;
+import com.mamba.benchmark.http.base.HttpRequest;
+import com.mamba.benchmark.http.base.Scenario;
+import com.mamba.benchmark.http.client.HttpClient;
+import com.mamba.benchmark.http.define.Invocation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Picks requests of a scenario by weight, each endpoint records into its own statistics (also aggregated into the parent)
+ */
+public class ScenarioTaskGenerator implements IntFunction<List<Invocation>> {
+
+    private final HttpClient httpClient;
+
+    private final HttpRequest[] requests;
+
+    private final Statistics[] statistics;
+
+    private final AliasTable table;
+
+    private final boolean async;
+
+    private final Map<String, Statistics> endpointStatistics;
+
+    /**
+     * @param httpClient
+     * @param scenario
+     * @param parent     aggregate statistics of the run
+     * @param async
+     */
+    public ScenarioTaskGenerator(HttpClient httpClient, Scenario scenario, Statistics parent, boolean async) {
+        List<Scenario.Endpoint> endpoints = scenario.getEndpoints();
+        int size = endpoints.size();
+        this.httpClient = httpClient;
+        this.requests = new HttpRequest[size];
+        this.statistics = new Statistics[size];
+        double[] weights = new double[size];
+        Map<String, Statistics> endpointStatistics = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            Scenario.Endpoint endpoint = endpoints.get(i);
+            this.requests[i] = endpoint.getRequest();
+            this.statistics[i] = new Statistics(parent);
+            weights[i] = endpoint.getWeight();
+            endpointStatistics.put(endpoint.getName(), this.statistics[i]);
+        }
+        this.table = new AliasTable(weights);
+        this.async = async;
+        this.endpointStatistics = Collections.unmodifiableMap(endpointStatistics);
+    }
+
+    /**
+     * Statistics by endpoint name, in scenario order
+     *
+     * @return
+     */
+    public Map<String, Statistics> getEndpointStatistics() {
+        return endpointStatistics;
+    }
+
+    @Override
+    public List<Invocation> apply(int num) {
+        List<Invocation> tasks = new ArrayList<>(num);
+        for (int i = 0; i < num; i++) {
+            int index = this.table.next();
+            tasks.add(new Invocation(this.httpClient, this.requests[index].toRequest(), this.async, this.statistics[index], this.requests[index].getAssertion()));
+        }
+        return tasks;
+    }
+
+    public static ScenarioTaskGenerator newInstance(HttpClient httpClient, Scenario scenario, Statistics parent, boolean async) {
+        return new ScenarioTaskGenerator(httpClient, scenario, parent, async);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mamba.benchmark.common.cluster;
+
+import com.mamba.benchmark.common.pressure.Fixed;
+import com.mamba.benchmark.common.pressure.Split;
+import com.mamba.benchmark.common.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CoordinatorTest {
+
+    @Test
+    void test_split() {
+        Fixed pressure = new Fixed(1001, 10);
+        int sum = 0;
+        for (int i = 0; i < 3; i++) {
+            int quantity = new Split(pressure, i, 3).currentQuantity();
+            assertEquals(i < 2 ? 334 : 333, quantity);
+            sum += quantity;
+        }
+        assertEquals(1001, sum);
+    }
+
+    @Test
+    void test_merge() throws Exception {
+        int agents = 3;
+        List<String> args = Arrays.asList("-t", "-quantity", "300");
+        List<Statistics.Snapshot> windows = new ArrayList<>();
+        List<Integer> targets = new ArrayList<>();
+        try (Coordinator coordinator = new Coordinator(0, agents)) {
+            coordinator.addListener((window, target) -> {
+                windows.add(window);
+                targets.add(target);
+            });
+            List<CompletableFuture<Long>> runs = new ArrayList<>();
+            for (int i = 0; i < agents; i++) {
+                runs.add(CompletableFuture.supplyAsync(() -> this.runAgent(coordinator.getPort(), args)));
+            }
+            coordinator.assign(args, 10000);
+            coordinator.start(10000);
+            Statistics.Snapshot total = coordinator.await();
+
+            long requests = 0;
+            for (CompletableFuture<Long> run : runs) {
+                requests += run.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(requests, total.getRequests());
+            assertEquals(requests, total.getResponses() + total.getErrorCount());
+            assertEquals(total.getResponses(), total.getResponseTime().getTotalCount());
+            assertEquals(Arrays.asList(300, 300), targets);
+            //窗口在发送线程快照，只校验总数
+            assertEquals(2, windows.size());
+            assertEquals(total.getResponses(), windows.get(0).getResponses() + windows.get(1).getResponses());
+        }
+    }
+
+    /**
+     * Agent recording 100 requests in each of two ticks, and some after the last tick
+     */
+    private long runAgent(int port, List<String> expectedArgs) {
+        try (Agent agent = Agent.connect("127.0.0.1", port, 10000)) {
+            Agent.Assignment assignment = agent.awaitAssignment();
+            assertEquals(expectedArgs, assignment.getArgs());
+            Statistics statistics = new Statistics();
+            agent.attach(statistics);
+            agent.ready();
+            long requests = 0;
+            for (int tick = 0; tick < 2; tick++) {
+                for (int i = 0; i < 100; i++, requests++) {
+                    statistics.onRequest();
+                    statistics.onResponse(200, 1000000L * (i + 1), 1000000L * (i + 1));
+                }
+                agent.accept(300 / assignment.getCount());
+            }
+            for (int i = 0; i <= assignment.getIndex(); i++, requests++) {
+                statistics.onRequest();
+                statistics.onError(new IllegalStateException());
+            }
+            agent.finish();
+            return requests;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.mamba.benchmark.common.dataset;
+
+import com.google.common.net.PercentEscaper;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvDatasetTest {
+
+    @Test
+    void test_sequential() throws Exception {
+        File file = newFile("id,name\r\n1,a\r\n2,\"b,\"\"c\"\"\"\r\n\r\n3,d");
+        try (CsvDataset dataset = new CsvDataset(file, Cursor.SEQUENTIAL)) {
+            assertArrayEquals(new String[]{"id", "name"}, dataset.getHeader());
+            assertEquals(1, dataset.indexOf("name"));
+            assertArrayEquals(new String[]{"1", "a"}, dataset.next());
+            assertArrayEquals(new String[]{"2", "b,\"c\""}, dataset.next());
+            assertArrayEquals(new String[]{"3", "d"}, dataset.next());
+            assertArrayEquals(new String[]{"1", "a"}, dataset.next());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void test_random() throws Exception {
+        File file = newFile(records(100));
+        try (CsvDataset dataset = new CsvDataset(file, Cursor.RANDOM)) {
+            Set<String> ids = new HashSet<>();
+            for (int i = 0; i < 10000; i++) {
+                ids.add(dataset.next()[0]);
+            }
+            assertEquals(100, ids.size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void test_partitioned() throws Exception {
+        File file = newFile(records(100));
+        //与执行器相同, 由单个preparer线程分批生成
+        ScheduledThreadPoolExecutor preparer = new ScheduledThreadPoolExecutor(1);
+        try (CsvDataset dataset = new CsvDataset(file, Cursor.PARTITIONED, 4)) {
+            List<String> ids = new ArrayList<>();
+            for (int batch = 0; batch < 10; batch++) {
+                ids.addAll(preparer.submit(() -> {
+                    List<String> tasks = new ArrayList<>();
+                    for (int i = 0; i < 10; i++) {
+                        tasks.add(dataset.next()[0]);
+                    }
+                    return tasks;
+                }).get());
+            }
+            assertEquals(Arrays.asList("000", "025", "050", "075", "001"), ids.subList(0, 5));
+            assertEquals(100, new HashSet<>(ids).size());
+        } finally {
+            preparer.shutdownNow();
+            file.delete();
+        }
+    }
+
+    @Test
+    void test_partitioned_concurrent() throws Exception {
+        File file = newFile(records(100));
+        try (CsvDataset dataset = new CsvDataset(file, Cursor.PARTITIONED, 4)) {
+            Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        counts.computeIfAbsent(dataset.next()[0], k -> new AtomicInteger()).incrementAndGet();
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(100, counts.size());
+            counts.forEach((id, count) -> assertEquals(4, count.get(), id));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void test_slice() throws Exception {
+        File file = newFile(records(100));
+        try {
+            Set<String> ids = new HashSet<>();
+            for (int slice = 0; slice < 3; slice++) {
+                try (CsvDataset dataset = new CsvDataset(file, Cursor.PARTITIONED, 2, slice, 3)) {
+                    Set<String> records = new HashSet<>();
+                    for (int i = 0; i < 100; i++) {
+                        records.add(dataset.next()[0]);
+                    }
+                    assertTrue(records.size() >= 33 && records.size() <= 34, "slice size: " + records.size());
+                    ids.addAll(records);
+                }
+            }
+            assertEquals(100, ids.size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void test_template() {
+        Template template = Template.compile("/users/${id}?name=${name}", name -> "id".equals(name) ? 0 : "name".equals(name) ? 1 : -1);
+        assertEquals("/users/7?name=x", template.render(new String[]{"7", "x"}));
+        assertEquals("/users/7?name=", template.render(new String[]{"7"}));
+        //url中的值编码, 字面量不变
+        assertEquals("/users/a%2Fb?name=x%20y%26z%3D1", template.render(new String[]{"a/b", "x y&z=1"}, new PercentEscaper("-._~", false)::escape));
+    }
+
+    private static String records(int count) {
+        StringBuilder builder = new StringBuilder("id,name\n");
+        for (int i = 0; i < count; i++) {
+            builder.append(String.format("%03d,name%03d\n", i, i));
+        }
+        return builder.toString();
+    }
+
+    private static File newFile(String content) throws Exception {
+        File file = File.createTempFile("dataset", ".csv");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
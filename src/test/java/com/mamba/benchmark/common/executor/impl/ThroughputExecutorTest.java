@@ -0,0 +1,53 @@
+package com.mamba.benchmark.common.executor.impl;
+
+import com.mamba.benchmark.common.executor.Arrival;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThroughputExecutorTest {
+
+    @Test
+    void test_generate_on_preparer() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger dispatched = new AtomicInteger();
+        AtomicInteger refilled = new AtomicInteger();
+        AtomicLong startTime = new AtomicLong();
+        //2.5秒后速率提升，缓冲在下一秒之前耗尽，由preparer提前补充
+        ThroughputExecutor<Runnable> executor = new ThroughputExecutor<>(num -> {
+            threads.add(Thread.currentThread().getName());
+            List<Runnable> tasks = new ArrayList<>(num);
+            for (int i = 0; i < num; i++) {
+                tasks.add(() -> {
+                    dispatched.incrementAndGet();
+                    long elapsed = System.currentTimeMillis() - startTime.get();
+                    if (elapsed > 2600 && elapsed < 2950) {
+                        refilled.incrementAndGet();
+                    }
+                });
+            }
+            return tasks;
+        }, () -> {
+            startTime.compareAndSet(0, System.currentTimeMillis());
+            long elapsed = System.currentTimeMillis() - startTime.get();
+            return elapsed < 2500 ? 50 : elapsed < 3500 ? 2000 : -1;
+        }, Arrival.UNIFORM, true);
+        try {
+            executor.start(1);
+        } finally {
+            executor.close();
+        }
+        assertTrue(dispatched.get() > 500, "dispatched: " + dispatched.get());
+        assertTrue(refilled.get() > 300, "dispatched before the next second: " + refilled.get());
+        for (String thread : threads) {
+            assertTrue(thread.startsWith("preparer-"), thread);
+        }
+    }
+}
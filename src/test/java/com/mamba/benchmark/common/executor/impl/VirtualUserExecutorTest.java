@@ -0,0 +1,65 @@
+package com.mamba.benchmark.common.executor.impl;
+
+import com.mamba.benchmark.common.executor.AsyncTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualUserExecutorTest {
+
+    @Test
+    void test_resume_parked_users() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicLong startTime = new AtomicLong();
+        ScheduledThreadPoolExecutor io = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("io"));
+        //前1.5秒无任务，用户全部挂起
+        VirtualUserExecutor<AsyncTask> executor = new VirtualUserExecutor<>(num -> {
+            threads.add(Thread.currentThread().getName());
+            if (System.currentTimeMillis() - startTime.get() < 1500) {
+                return Collections.emptyList();
+            }
+            List<AsyncTask> tasks = new ArrayList<>(num);
+            for (int i = 0; i < num; i++) {
+                tasks.add(new AsyncTask() {
+                    @Override
+                    public CompletableFuture<?> start() {
+                        CompletableFuture<Object> future = new CompletableFuture<>();
+                        io.schedule(() -> future.complete(completed.incrementAndGet()), 1, TimeUnit.MILLISECONDS);
+                        return future;
+                    }
+
+                    @Override
+                    public void run() {
+                        this.start().join();
+                    }
+                });
+            }
+            return tasks;
+        }, () -> {
+            startTime.compareAndSet(0, System.currentTimeMillis());
+            return System.currentTimeMillis() - startTime.get() < 3000 ? 5 : -1;
+        });
+        try {
+            executor.start(1);
+        } finally {
+            executor.close();
+            io.shutdownNow();
+        }
+        assertTrue(completed.get() > 100, "completed: " + completed.get());
+        for (String thread : threads) {
+            assertTrue(thread.startsWith("preparer-"), thread);
+        }
+    }
+}
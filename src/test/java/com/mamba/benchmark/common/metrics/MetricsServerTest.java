@@ -0,0 +1,54 @@
+package com.mamba.benchmark.common.metrics;
+
+import com.google.common.io.CharStreams;
+import com.mamba.benchmark.common.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsServerTest {
+
+    private static String scrape(int port) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/metrics").openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+        try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            return CharStreams.toString(reader);
+        }
+    }
+
+    @Test
+    void test_scrape() throws IOException {
+        Statistics statistics = new Statistics();
+        Statistics login = new Statistics(statistics);
+        for (int i = 1; i <= 100; i++) {
+            login.onRequest();
+            login.onResponse(200, i * 1000000L, i * 1000000L);
+        }
+        login.onRequest();
+        login.onError(new TimeoutException());
+        try (MetricsServer server = new MetricsServer(0)) {
+            server.addStatistics(statistics::snapshot);
+            server.addStatistics(login::snapshot, "endpoint", "lo\"gin");
+            server.addCollector(writer -> writer.gauge("benchmark_executor_limit", "Target", 300));
+            String text = scrape(server.getPort());
+            assertTrue(text.contains("# TYPE benchmark_requests_total counter\nbenchmark_requests_total 101\nbenchmark_requests_total{endpoint=\"lo\\\"gin\"} 101\n"), text);
+            assertTrue(text.contains("benchmark_responses_total{status=\"2xx\"} 100\n"), text);
+            assertTrue(text.contains("benchmark_errors_total{error=\"TimeoutException\"} 1\n"), text);
+            assertTrue(text.contains("benchmark_response_time_seconds_bucket{le=\"0.05\"} 50\n"), text);
+            assertTrue(text.contains("benchmark_response_time_seconds_bucket{endpoint=\"lo\\\"gin\",le=\"+Inf\"} 100\n"), text);
+            assertTrue(text.contains("benchmark_response_time_seconds_count 100\n"), text);
+            assertTrue(text.contains("benchmark_executor_limit 300\n"), text);
+            assertEquals(1, text.split("# TYPE benchmark_requests_total ", -1).length - 1);
+        }
+    }
+}
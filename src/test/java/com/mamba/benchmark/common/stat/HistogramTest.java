@@ -0,0 +1,66 @@
+package com.mamba.benchmark.common.stat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+    @Test
+    void test_index() {
+        for (long value : new long[]{0, 1, 255, 256, 257, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = Histogram.indexOf(value);
+            assertTrue(Histogram.lowestEquivalentValue(index) <= value);
+            assertTrue(Histogram.highestEquivalentValue(index) >= value);
+        }
+        assertEquals(Histogram.LENGTH - 1, Histogram.indexOf(Long.MAX_VALUE));
+        for (int i = 1; i < Histogram.LENGTH; i++) {
+            assertEquals(Histogram.highestEquivalentValue(i - 1) + 1, Histogram.lowestEquivalentValue(i));
+        }
+    }
+
+    @Test
+    void test_percentile() {
+        Histogram histogram = new Histogram();
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(100000, histogram.getTotalCount());
+        assertRelative(50000000, histogram.getValueAtPercentile(50));
+        assertRelative(99000000, histogram.getValueAtPercentile(99));
+        assertRelative(99900000, histogram.getValueAtPercentile(99.9));
+        assertRelative(100000000, histogram.getMaxValue());
+        assertRelative(1000, histogram.getMinValue());
+    }
+
+    @Test
+    void test_recorder() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    recorder.record(i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Histogram snapshot = recorder.snapshot();
+        assertEquals(40000, snapshot.getTotalCount());
+        recorder.record(1000000);
+        Histogram interval = recorder.snapshot().minus(snapshot);
+        assertEquals(1, interval.getTotalCount());
+        assertRelative(1000000, interval.getMaxValue());
+    }
+
+    private static void assertRelative(long expected, long actual) {
+        assertTrue(Math.abs(expected - actual) <= expected / 100, "expected: " + expected + ", actual: " + actual);
+    }
+}
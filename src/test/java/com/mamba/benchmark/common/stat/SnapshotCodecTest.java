@@ -0,0 +1,87 @@
+package com.mamba.benchmark.common.stat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotCodecTest {
+
+    private static Statistics.Snapshot roundTrip(Statistics.Snapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotCodec.write(new DataOutputStream(bytes), snapshot);
+        return SnapshotCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static void assertSame(Statistics.Snapshot expected, Statistics.Snapshot actual) {
+        assertEquals(expected.getRequests(), actual.getRequests());
+        assertEquals(expected.getResponses(), actual.getResponses());
+        assertEquals(expected.getInflight(), actual.getInflight());
+        assertEquals(expected.getBytesIn(), actual.getBytesIn());
+        assertEquals(expected.getBytesOut(), actual.getBytesOut());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(expected.getStatuses(i), actual.getStatuses(i));
+        }
+        assertEquals(expected.getErrors(), actual.getErrors());
+        assertEquals(expected.getFailures(), actual.getFailures());
+        assertEquals(expected.getConnectionsOpened(), actual.getConnectionsOpened());
+        assertEquals(expected.getConnectionTimeouts(), actual.getConnectionTimeouts());
+        for (int i = 0; i < Histogram.LENGTH; i++) {
+            assertEquals(expected.getServiceTime().getCount(i), actual.getServiceTime().getCount(i));
+            assertEquals(expected.getResponseTime().getCount(i), actual.getResponseTime().getCount(i));
+            assertEquals(expected.getPoolWait().getCount(i), actual.getPoolWait().getCount(i));
+        }
+    }
+
+    private static void record(Statistics statistics, int from, int to) {
+        for (int i = from; i < to; i++) {
+            statistics.onRequest();
+            statistics.onBytesOut(100);
+            if (i % 10 == 0) {
+                statistics.onError(new TimeoutException());
+            } else {
+                statistics.onResponse(i % 7 == 0 ? 500 : 200, i * 1000L, i * 1500L);
+                statistics.onBytesIn(i);
+            }
+            if (i % 13 == 0) {
+                statistics.onFailure("status");
+            }
+            statistics.onConnectionOpened();
+            statistics.onPoolWait(i * 10L);
+        }
+    }
+
+    @Test
+    void test_round_trip() throws IOException {
+        Statistics statistics = new Statistics();
+        record(statistics, 0, 10000);
+        statistics.onRequest();
+        Statistics.Snapshot snapshot = statistics.snapshot();
+        assertSame(snapshot, roundTrip(snapshot));
+        assertSame(new Statistics().snapshot(), roundTrip(new Statistics().snapshot()));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotCodec.write(new DataOutputStream(bytes), snapshot);
+        assertTrue(bytes.size() < 8192, "encoded size: " + bytes.size());
+    }
+
+    @Test
+    void test_plus() {
+        Statistics whole = new Statistics();
+        record(whole, 0, 3000);
+        Statistics left = new Statistics();
+        record(left, 0, 1000);
+        Statistics right = new Statistics();
+        record(right, 1000, 3000);
+        Statistics.Snapshot merged = left.snapshot().plus(right.snapshot());
+        assertSame(whole.snapshot(), merged);
+        assertEquals(whole.snapshot().getResponseTime().getValueAtPercentile(99), merged.getResponseTime().getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,30 @@
+package com.mamba.benchmark.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AliasTableTest {
+
+    @Test
+    void test_distribution() {
+        double[] weights = {5, 0, 3, 1, 1};
+        AliasTable table = new AliasTable(weights);
+        int[] counts = new int[weights.length];
+        int total = 1000000;
+        for (int i = 0; i < total; i++) {
+            counts[table.next()]++;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(weights[i] / 10, counts[i] / (double) total, 0.005);
+        }
+    }
+
+    @Test
+    void test_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{1, -1}));
+    }
+}
@@ -0,0 +1,47 @@
+package com.mamba.benchmark.common.util;
+
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceIdGeneratorTest {
+
+    @Test
+    void test_format() {
+        String traceId = TraceIdGenerator.genTraceId("ab");
+        assertEquals(TraceIdGenerator.LENGTH, traceId.length());
+        assertTrue(traceId.matches("[0-9a-f]{30}ab"), traceId);
+        AsciiString next = new TraceIdGenerator("0f").next();
+        assertEquals(traceId.substring(0, 8), next.toString().substring(0, 8));
+        assertThrows(IllegalArgumentException.class, () -> new TraceIdGenerator("AB"));
+    }
+
+    @Test
+    void test_unique() throws Exception {
+        TraceIdGenerator generator = new TraceIdGenerator("ab");
+        Set<String> traceIds = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                byte[] bytes = new byte[TraceIdGenerator.LENGTH + 4];
+                for (int i = 0; i < 10000; i++) {
+                    generator.write(bytes, 4);
+                    traceIds.add(new AsciiString(bytes, 4, TraceIdGenerator.LENGTH, true).toString());
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, traceIds.size());
+    }
+}
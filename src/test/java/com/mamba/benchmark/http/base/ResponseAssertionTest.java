@@ -0,0 +1,74 @@
+package com.mamba.benchmark.http.base;
+
+import com.alibaba.fastjson.JSONObject;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseAssertionTest {
+
+    private static String check(String assertions, int status, HttpHeaders headers, String... parts) {
+        ResponseAssertion.State state = ResponseAssertion.parse(JSONObject.parseObject(assertions)).newState();
+        state.onStatus(status);
+        state.onHeaders(headers);
+        for (String part : parts) {
+            state.onBodyPart(ByteBuffer.wrap(part.getBytes(StandardCharsets.UTF_8)));
+        }
+        return state.finish();
+    }
+
+    @Test
+    void test_status_headers() {
+        HttpHeaders headers = new DefaultHttpHeaders().add("Content-Type", "application/json").add("X-Trace", "1");
+        String assertions = "{\"status\":[200,201],\"headers\":{\"content-type\":\"application/json\",\"X-Trace\":null}}";
+        assertNull(check(assertions, 201, headers));
+        assertEquals(ResponseAssertion.STATUS, check(assertions, 500, headers));
+        assertEquals(ResponseAssertion.HEADER, check(assertions, 200, new DefaultHttpHeaders().add("Content-Type", "application/json")));
+    }
+
+    @Test
+    void test_contains_across_parts() {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        String assertions = "{\"contains\":\"abab\"}";
+        assertNull(check(assertions, 200, headers, "xxaba", "b", "yy"));
+        assertNull(check(assertions, 200, headers, "aba", "abab"));
+        assertEquals(ResponseAssertion.CONTAINS, check(assertions, 200, headers, "aba", "xbab"));
+    }
+
+    @Test
+    void test_regex_json_path() {
+        HttpHeaders headers = new DefaultHttpHeaders().add("Content-Type", "application/json; charset=utf-8");
+        assertNull(check("{\"regex\":\"\\\"id\\\":\\\\d+\"}", 200, headers, "{\"id\":", "42}"));
+        assertEquals(ResponseAssertion.REGEX, check("{\"regex\":\"\\\"id\\\":\\\\d+\"}", 200, headers, "{\"id\":\"x\"}"));
+        assertNull(check("{\"jsonPath\":{\"path\":\"$.data.code\",\"value\":0}}", 200, headers, "{\"data\":{\"co", "de\":0}}"));
+        assertNull(check("{\"jsonPath\":\"$.data\"}", 200, headers, "{\"data\":1}"));
+        assertEquals(ResponseAssertion.JSON_PATH, check("{\"jsonPath\":{\"path\":\"$.data.code\",\"value\":0}}", 200, headers, "{\"data\":{\"code\":1}}"));
+        assertEquals(ResponseAssertion.JSON_PATH, check("{\"jsonPath\":\"$.data\"}", 200, headers, "not json"));
+    }
+
+    @Test
+    void test_max_body_size() {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        assertNull(check("{\"maxBodySize\":8}", 200, headers, "1234", "5678"));
+        assertEquals(ResponseAssertion.BODY_SIZE, check("{\"maxBodySize\":8}", 200, headers, "1234", "56789"));
+        assertEquals(ResponseAssertion.BODY_SIZE, check("{\"maxBodySize\":8,\"regex\":\"1\"}", 200, headers, "123456789"));
+    }
+
+    @Test
+    void test_too_large() {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        char[] filler = new char[1 << 20];
+        Arrays.fill(filler, ' ');
+        String large = new String(filler);
+        assertNull(check("{\"regex\":\"id=\\\\d+\"}", 200, headers, "id=1", large));
+        assertEquals(ResponseAssertion.TOO_LARGE, check("{\"regex\":\"id=\\\\d+\"}", 200, headers, large, "id=1"));
+        assertEquals(ResponseAssertion.TOO_LARGE, check("{\"jsonPath\":\"$.data\"}", 200, headers, "{\"data\":1,\"pad\":\"", large, "\"}"));
+    }
+}
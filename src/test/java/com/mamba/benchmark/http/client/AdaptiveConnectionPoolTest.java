@@ -0,0 +1,56 @@
+package com.mamba.benchmark.http.client;
+
+import org.asynchttpclient.exception.TooManyConnectionsPerHostException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveConnectionPoolTest {
+
+    @Test
+    void test_grow_on_miss() throws IOException {
+        AdaptiveConnectionPool pool = new AdaptiveConnectionPool(2, 5);
+        AdaptiveConnectionPool.Host host = pool.getHost("http://localhost:80");
+        for (int i = 0; i < 5; i++) {
+            pool.acquire(host, 0);
+        }
+        assertEquals(5, host.getLimit());
+        assertThrows(TooManyConnectionsPerHostException.class, () -> pool.acquire(host, 0));
+    }
+
+    @Test
+    void test_resize_by_peak() throws IOException {
+        AdaptiveConnectionPool pool = new AdaptiveConnectionPool(2, 100);
+        AdaptiveConnectionPool.Host host = pool.getHost("http://localhost:80");
+        for (int i = 0; i < 40; i++) {
+            host.onRequest();
+        }
+        pool.resize();
+        assertEquals(50, host.getLimit());
+
+        //需求回落后逐步缩容，不低于下限
+        for (int i = 0; i < 38; i++) {
+            host.onResponse();
+        }
+        pool.resize();
+        for (int i = 1; i < AdaptiveConnectionPool.SHRINK_PERIODS; i++) {
+            pool.resize();
+            assertEquals(50, host.getLimit());
+        }
+        pool.resize();
+        assertEquals(26, host.getLimit());
+        for (int i = 0; i < 10 * AdaptiveConnectionPool.SHRINK_PERIODS; i++) {
+            pool.resize();
+        }
+        assertEquals(3, host.getLimit());
+
+        //缩容后再次连接不足时立即扩容
+        for (int i = 0; i < 4; i++) {
+            pool.acquire(host, 0);
+        }
+        assertEquals(6, host.getLimit());
+    }
+}
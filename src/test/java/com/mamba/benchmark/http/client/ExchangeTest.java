@@ -0,0 +1,72 @@
+package com.mamba.benchmark.http.client;
+
+import com.alibaba.fastjson.JSONObject;
+import com.mamba.benchmark.common.stat.Statistics;
+import com.mamba.benchmark.http.base.ResponseAssertion;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExchangeTest {
+
+    private static ResponseSummary respond(Exchange exchange, String... parts) {
+        exchange.onSent(0);
+        exchange.onStatus(200);
+        exchange.onHeaders(new DefaultHttpHeaders());
+        for (String part : parts) {
+            exchange.onBodyPart(ByteBuffer.wrap(part.getBytes(StandardCharsets.UTF_8)));
+        }
+        return exchange.onCompleted();
+    }
+
+    @Test
+    void test_aggregate_checksum() throws Exception {
+        Statistics statistics = new Statistics();
+        ResponseSummary summary = respond(new Exchange(statistics, System.nanoTime(), true, true, null), "{\"code\":", "", "0}");
+        byte[] body = "{\"code\":0}".getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        assertArrayEquals(body, summary.getBody());
+        assertEquals(body.length, summary.getBodyLength());
+        assertEquals(crc.getValue(), summary.getChecksum());
+        Statistics.Snapshot snapshot = statistics.snapshot();
+        assertEquals(1, snapshot.getResponses());
+        assertEquals(body.length, snapshot.getBytesIn());
+    }
+
+    @Test
+    void test_discard_assertion() {
+        Statistics statistics = new Statistics();
+        ResponseAssertion assertion = ResponseAssertion.parse(JSONObject.parseObject("{\"contains\":\"\\\"code\\\":0\"}"));
+        ResponseSummary summary = respond(new Exchange(statistics, System.nanoTime(), false, false, assertion), "{\"code\":1}");
+        assertNull(summary.getBody());
+        assertEquals(-1, summary.getChecksum());
+        assertEquals(ResponseAssertion.CONTAINS, summary.getFailure());
+        assertEquals(1, statistics.snapshot().getFailureCount());
+    }
+
+    @Test
+    void test_error() {
+        Statistics statistics = new Statistics();
+        Exchange exchange = new Exchange(statistics, System.nanoTime(), true, false, null);
+        exchange.onError(new IOException("reset"));
+        exchange.onError(new IOException("again"));
+        assertTrue(exchange.isDone());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> exchange.getFuture().get());
+        assertEquals("reset", e.getCause().getMessage());
+        assertEquals(1, statistics.snapshot().getErrorCount());
+        assertEquals(1, statistics.snapshot().getResponseTime().getTotalCount());
+        assertEquals(0, statistics.snapshot().getServiceTime().getTotalCount());
+    }
+}
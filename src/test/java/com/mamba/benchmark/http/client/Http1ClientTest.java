@@ -0,0 +1,209 @@
+package com.mamba.benchmark.http.client;
+
+import com.mamba.benchmark.common.stat.Statistics;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Http1ClientTest {
+
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    private EventLoopGroup group;
+
+    private Channel server;
+
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        this.group = new NioEventLoopGroup(1);
+        this.server = new ServerBootstrap().group(this.group).channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        accepted.incrementAndGet();
+                        ch.pipeline().addLast(new HttpRequestDecoder(), new ScriptedHandler());
+                    }
+                }).bind("127.0.0.1", 0).syncUninterruptibly().channel();
+        this.port = ((InetSocketAddress) this.server.localAddress()).getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.close().syncUninterruptibly();
+        this.group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    private Http1Client newClient(int pipelining, Statistics statistics) {
+        return Http1Client.Builder.custom().ioThreadsCount(1).connections(1).pipelining(pipelining).requestTimeout(300).statistics(statistics).build();
+    }
+
+    private ClientRequest request(String method, String path) {
+        return new ClientRequest(method, RequestUri.create("http://127.0.0.1:" + this.port + path), new DefaultHttpHeaders(false), null);
+    }
+
+    private static String body(CompletableFuture<ResponseSummary> future) throws Exception {
+        return new String(future.get(5, TimeUnit.SECONDS).getBody(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void test_pipelining() throws Exception {
+        Statistics statistics = new Statistics();
+        try (Http1Client client = newClient(8, statistics)) {
+            List<CompletableFuture<ResponseSummary>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(client.execute(request("GET", "/echo?i=" + i), System.nanoTime(), null, null));
+            }
+            //响应按发送顺序匹配
+            for (int i = 0; i < 50; i++) {
+                assertTrue(body(futures.get(i)).startsWith("GET /echo?i=" + i + "\r\n"));
+            }
+        }
+        assertEquals(1, this.accepted.get());
+        assertEquals(50, statistics.snapshot().getResponses());
+    }
+
+    @Test
+    void test_head_and_informational() throws Exception {
+        try (Http1Client client = newClient(4, null)) {
+            CompletableFuture<ResponseSummary> head = client.execute(request("HEAD", "/head"), System.nanoTime(), null, null);
+            CompletableFuture<ResponseSummary> informational = client.execute(request("GET", "/continue"), System.nanoTime(), null, null);
+            CompletableFuture<ResponseSummary> echo = client.execute(request("GET", "/echo"), System.nanoTime(), null, null);
+            assertEquals(200, head.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(0, head.get().getBodyLength());
+            assertEquals(200, informational.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals("ok", body(informational));
+            assertTrue(body(echo).startsWith("GET /echo\r\n"));
+        }
+        assertEquals(1, this.accepted.get());
+    }
+
+    @Test
+    void test_connection_close() throws Exception {
+        Statistics statistics = new Statistics();
+        try (Http1Client client = newClient(1, statistics)) {
+            assertEquals("ok", body(client.execute(request("GET", "/close"), System.nanoTime(), null, null)));
+            assertTrue(body(client.execute(request("GET", "/echo"), System.nanoTime(), null, null)).startsWith("GET /echo\r\n"));
+        }
+        assertEquals(2, this.accepted.get());
+        assertEquals(2, statistics.snapshot().getConnectionsOpened());
+    }
+
+    @Test
+    void test_timeout_reroute() throws Exception {
+        Statistics statistics = new Statistics();
+        try (Http1Client client = newClient(1, statistics)) {
+            CompletableFuture<ResponseSummary> slow = client.execute(request("GET", "/slow"), System.nanoTime(), null, null);
+            CompletableFuture<ResponseSummary> queued = client.execute(request("GET", "/echo"), System.nanoTime(), null, null);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> slow.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TimeoutException);
+            //未写出的请求转到新连接
+            assertTrue(body(queued).startsWith("GET /echo\r\n"));
+        }
+        assertEquals(2, this.accepted.get());
+        assertEquals(1, statistics.snapshot().getConnectionTimeouts());
+    }
+
+    @Test
+    void test_encoded_head() throws Exception {
+        HttpHeaders headers = new DefaultHttpHeaders(false).add("X-Shared", "a");
+        ClientRequest base = new ClientRequest("POST", RequestUri.create("http://127.0.0.1:" + this.port + "/echo"), headers, ByteBuffer.wrap("body".getBytes(StandardCharsets.UTF_8)));
+        String host = "127.0.0.1:" + this.port;
+        try (Http1Client client = newClient(1, null)) {
+            //第二个派生请求起复用base的请求头
+            for (int i = 0; i < 3; i++) {
+                ClientRequest request = base.derive(new DefaultHttpHeaders(false).add("X-Trace", i));
+                assertEquals("POST /echo\r\nhost: " + host + "\r\nuser-agent: Benchmark/1.0\r\ncontent-length: 4\r\nX-Shared: a\r\nX-Trace: " + i + "\r\n\r\nbody",
+                        body(client.execute(request, System.nanoTime(), null, null)));
+            }
+            ClientRequest request = base.derive(new DefaultHttpHeaders(false).add("Host", "example.com"));
+            assertEquals("POST /echo\r\nuser-agent: Benchmark/1.0\r\ncontent-length: 4\r\nX-Shared: a\r\nHost: example.com\r\n\r\nbody",
+                    body(client.execute(request, System.nanoTime(), null, null)));
+        }
+    }
+
+    /**
+     * Responds by path: echo of the request, HEAD, 1xx before the response, Connection: close, or no response at all
+     */
+    private static class ScriptedHandler extends ChannelInboundHandlerAdapter {
+
+        private HttpRequest request;
+
+        private final StringBuilder body = new StringBuilder();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (msg instanceof HttpRequest) {
+                    this.request = (HttpRequest) msg;
+                    this.body.setLength(0);
+                }
+                if (msg instanceof HttpContent) {
+                    this.body.append(((HttpContent) msg).content().toString(StandardCharsets.UTF_8));
+                    if (msg instanceof LastHttpContent) {
+                        this.respond(ctx);
+                    }
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        private void respond(ChannelHandlerContext ctx) {
+            String path = this.request.uri();
+            if (path.startsWith("/echo")) {
+                StringBuilder echo = new StringBuilder().append(this.request.method()).append(' ').append(path).append("\r\n");
+                for (Map.Entry<String, String> header : this.request.headers()) {
+                    echo.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+                }
+                echo.append("\r\n").append(this.body);
+                write(ctx, "HTTP/1.1 200 OK\r\nContent-Length: " + echo.length() + "\r\n\r\n" + echo);
+            } else if (path.equals("/head")) {
+                write(ctx, "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\n");
+            } else if (path.equals("/continue")) {
+                write(ctx, "HTTP/1.1 100 Continue\r\n\r\nHTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+            } else if (path.equals("/close")) {
+                ctx.writeAndFlush(Unpooled.copiedBuffer("HTTP/1.1 200 OK\r\nContent-Length: 2\r\nConnection: close\r\n\r\nok", StandardCharsets.US_ASCII))
+                        .addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+
+        private static void write(ChannelHandlerContext ctx, String response) {
+            ctx.writeAndFlush(Unpooled.copiedBuffer(response, StandardCharsets.US_ASCII));
+        }
+    }
+}
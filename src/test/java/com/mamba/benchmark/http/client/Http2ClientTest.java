@@ -0,0 +1,146 @@
+package com.mamba.benchmark.http.client;
+
+import com.mamba.benchmark.common.stat.Statistics;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2GoAwayFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2FrameStream;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Http2ClientTest {
+
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    private EventLoopGroup group;
+
+    private Channel server;
+
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        this.group = new NioEventLoopGroup(1);
+        this.server = new ServerBootstrap().group(this.group).channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        accepted.incrementAndGet();
+                        ch.pipeline().addLast(new KeepOpenHandler(), Http2FrameCodecBuilder.forServer().build(), new ScriptedHandler());
+                    }
+                }).bind("127.0.0.1", 0).syncUninterruptibly().channel();
+        this.port = ((InetSocketAddress) this.server.localAddress()).getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.close().syncUninterruptibly();
+        this.group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    private ClientRequest request(String path) {
+        return new ClientRequest("GET", RequestUri.create("http://127.0.0.1:" + this.port + path), new DefaultHttpHeaders(false), null);
+    }
+
+    private static String body(CompletableFuture<ResponseSummary> future) throws Exception {
+        return new String(future.get(5, TimeUnit.SECONDS).getBody(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void test_streams() throws Exception {
+        try (Http2Client client = Http2Client.Builder.custom().ioThreadsCount(1).maxConcurrentStreams(2).build()) {
+            List<CompletableFuture<ResponseSummary>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(client.execute(request("/echo?i=" + i)));
+            }
+            //超出并发流数的请求排队等待
+            for (int i = 0; i < 20; i++) {
+                assertEquals("/echo?i=" + i, body(futures.get(i)));
+            }
+        }
+        assertEquals(1, this.accepted.get());
+    }
+
+    @Test
+    void test_goaway() throws Exception {
+        Statistics statistics = new Statistics();
+        try (Http2Client client = Http2Client.Builder.custom().ioThreadsCount(1).statistics(statistics).build()) {
+            assertEquals("/goaway", body(client.execute(request("/goaway"))));
+            //最后一个流结束后关闭连接
+            for (int i = 0; i < 100 && statistics.snapshot().getConnectionsClosed() == 0; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, statistics.snapshot().getConnectionsClosed());
+            assertEquals("/echo", body(client.execute(request("/echo"))));
+        }
+        assertEquals(2, this.accepted.get());
+    }
+
+    /**
+     * Ignores closing by the server side, so the connection is only closed when the client closes it
+     */
+    private static class KeepOpenHandler extends ChannelOutboundHandlerAdapter {
+
+        @Override
+        public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+            promise.setSuccess();
+        }
+    }
+
+    /**
+     * Responds with the path, after sending GOAWAY for "/goaway"
+     */
+    private static class ScriptedHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (msg instanceof Http2HeadersFrame && ((Http2HeadersFrame) msg).isEndStream()) {
+                    Http2HeadersFrame frame = (Http2HeadersFrame) msg;
+                    String path = frame.headers().path().toString();
+                    if (path.equals("/goaway")) {
+                        ctx.writeAndFlush(new DefaultHttp2GoAwayFrame(Http2Error.NO_ERROR));
+                        ctx.executor().schedule(() -> respond(ctx, frame.stream(), path), 100, TimeUnit.MILLISECONDS);
+                    } else {
+                        respond(ctx, frame.stream(), path);
+                    }
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        private static void respond(ChannelHandlerContext ctx, Http2FrameStream stream, String path) {
+            ctx.write(new DefaultHttp2HeadersFrame(new DefaultHttp2Headers().status("200")).stream(stream));
+            ctx.writeAndFlush(new DefaultHttp2DataFrame(Unpooled.copiedBuffer(path, StandardCharsets.UTF_8), true).stream(stream));
+        }
+    }
+}